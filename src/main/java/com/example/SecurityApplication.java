@@ -1,13 +1,19 @@
 package com.example;
 
+import com.example.auth.PrincipalCacheProperties;
+import com.example.note.SearchProperties;
 import com.example.security.JwtProperties;
+import com.example.security.PasswordProperties;
+import com.example.shared.SharedLinkProperties;
+import com.example.sync.SyncProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 
 @SpringBootApplication
-@EnableConfigurationProperties(JwtProperties.class)
+@EnableConfigurationProperties({JwtProperties.class, PasswordProperties.class, SearchProperties.class,
+		SyncProperties.class, SharedLinkProperties.class, PrincipalCacheProperties.class})
 public class SecurityApplication {
 
 	public static void main(String[] args) {
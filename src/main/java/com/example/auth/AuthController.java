@@ -1,6 +1,7 @@
 package com.example.auth;
 
 import com.example.security.JwtUtil;
+import com.example.security.TokenCredentials;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
@@ -36,7 +37,7 @@ public class AuthController {
     @PostMapping("/logout")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void logout(Authentication auth) {
-        String jti = (String) auth.getCredentials();
-        authService.logout(jti);
+        TokenCredentials token = (TokenCredentials) auth.getCredentials();
+        authService.logout(token.jti(), token.expiresAt());
     }
 }
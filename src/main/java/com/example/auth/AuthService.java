@@ -2,7 +2,9 @@ package com.example.auth;
 
 import com.example.exceptions.ConflictException;
 import com.example.revoked.RevokedToken;
+import com.example.revoked.RevokedTokenIndex;
 import com.example.revoked.RevokedTokenRepository;
+import com.example.security.JwtProperties;
 import com.example.security.JwtUtil;
 import com.example.user.Role;
 import com.example.user.User;
@@ -25,16 +27,21 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final RevokedTokenRepository revokedTokenRepository;
+    private final RevokedTokenIndex revokedTokenIndex;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final JwtProperties jwtProperties;
 
     public AuthService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder, RevokedTokenRepository revokedTokenRepository, AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
+                       PasswordEncoder passwordEncoder, RevokedTokenRepository revokedTokenRepository, RevokedTokenIndex revokedTokenIndex, AuthenticationManager authenticationManager, JwtUtil jwtUtil,
+                       JwtProperties jwtProperties) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.revokedTokenRepository = revokedTokenRepository;
+        this.revokedTokenIndex = revokedTokenIndex;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.jwtProperties = jwtProperties;
     }
 
 
@@ -56,10 +63,17 @@ public class AuthService {
         log.info("User registered: email={}", request.email());
     }
 
-    public void logout(String jti) {
-        revokedTokenRepository.save(
-                new RevokedToken(jti, Instant.now())
+    // expiresAt is null for a token without exp; the row is then kept for a full token lifetime
+    public void logout(String jti, Instant expiresAt) {
+        Instant now = Instant.now();
+        if (expiresAt == null) {
+            expiresAt = now.plusMillis(jwtProperties.getExpirationMs());
+        }
+        RevokedToken revoked = revokedTokenRepository.save(
+                new RevokedToken(jti, now, expiresAt)
         );
+        revokedTokenIndex.add(revoked);
+        jwtUtil.evict(jti);
         log.info("Logout successful: jti={}", jti);
     }
 
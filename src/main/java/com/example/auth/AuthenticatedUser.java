@@ -0,0 +1,7 @@
+package com.example.auth;
+
+// What services need from the caller: enough to scope queries, no password hash
+public record AuthenticatedUser(
+        Long id,
+        String email
+) {}
@@ -2,21 +2,52 @@ package com.example.auth;
 
 import com.example.exceptions.NotFoundException;
 import com.example.user.User;
+import com.example.user.UserChangedEvent;
 import com.example.user.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 public class CurrentUser {
 
     private final UserRepository userRepository;
+    // email -> principal, saves a users SELECT on every request
+    private final Cache<String, AuthenticatedUser> principals;
 
-    public CurrentUser(UserRepository userRepository) {
+    public CurrentUser(UserRepository userRepository, PrincipalCacheProperties props) {
         this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(props.getMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(props.getTtlSeconds()))
+                .build();
     }
 
-    public User get(Authentication auth) {
-        return userRepository.findByEmail(auth.getName())
+    public AuthenticatedUser get(Authentication auth) {
+        String email = auth.getName();
+        AuthenticatedUser principal = principals.getIfPresent(email);
+        if (principal != null) {
+            return principal;
+        }
+        // Not cache.get(email, loader): the lookup can auto-flush and fire UserChangedEvent
+        // for this same key, which must not re-enter a running computation
+        principal = userRepository.findPrincipalByEmail(email)
                 .orElseThrow(() -> new NotFoundException("User not found"));
+        principals.put(email, principal);
+        return principal;
+    }
+
+    // Uninitialized proxy, enough to set a foreign key without loading the row
+    public User reference(AuthenticatedUser principal) {
+        return userRepository.getReferenceById(principal.id());
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        principals.invalidate(event.email());
     }
 }
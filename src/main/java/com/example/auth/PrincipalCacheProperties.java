@@ -0,0 +1,27 @@
+package com.example.auth;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "principal-cache")
+public class PrincipalCacheProperties {
+    // Principals kept by CurrentUser, one per recently active email
+    private long maxSize = 10_000;
+    // Bounds how long a principal can outlive a change made on another node
+    private long ttlSeconds = 300;
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.base;
+
+import com.example.exceptions.BadRequestException;
+import com.example.exceptions.PreconditionFailedException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Strong ETags built from an entity's @Version, a user's change counter or a content hash, and the If-Match header that sends one back
+public final class ETags {
+
+    private ETags() {}
+
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Listings: the same counter value means the same data for that user
+    public static String ofCounter(long userId, long counter) {
+        return "\"" + userId + "." + counter + "\"";
+    }
+
+    // Responses with no single version to go by; the parts are everything the representation is built from
+    public static String ofContent(Object... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        for (Object part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        // 128 bits are plenty to tell two versions of one response apart
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    // The version the client expects, or null when the write is unconditional (no header or *)
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        // If-Match compares strongly, a weak tag can never match
+        if (tag.startsWith("W/")) {
+            throw new PreconditionFailedException("If-Match requires a strong ETag");
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new BadRequestException("Malformed If-Match header: " + tag);
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException ex) {
+            // not one of ours, so it cannot be the current version
+            throw new PreconditionFailedException("If-Match does not match the current version");
+        }
+    }
+}
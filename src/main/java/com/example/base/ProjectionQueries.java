@@ -0,0 +1,125 @@
+package com.example.base;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs a Specification but selects only the given columns, one map per row keyed by field name.
+ * Columns are field name -> attribute path, dotted paths ("folder.id") read the foreign key
+ * without joining. Computed columns are field name -> expression built on the root, for values
+ * derived in SQL such as a substring. Backs the ?fields= parameter and the summary views.
+ */
+@Repository
+public class ProjectionQueries {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @FunctionalInterface
+    public interface Computed<E> {
+        Expression<?> select(Root<E> root, CriteriaBuilder cb);
+    }
+
+    public <E> Page<Map<String, Object>> findAll(Class<E> type, Specification<E> spec,
+                                                 Map<String, String> columns, Pageable pageable) {
+        return findAll(type, spec, columns, Map.of(), pageable);
+    }
+
+    public <E> Page<Map<String, Object>> findAll(Class<E> type, Specification<E> spec, Map<String, String> columns,
+                                                 Map<String, Computed<E>> computed, Pageable pageable) {
+        TypedQuery<Tuple> query = select(type, spec, columns, computed, pageable.getSort());
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        List<Map<String, Object>> rows = toRows(query.getResultList(), fieldNames(columns, computed));
+
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(type, spec));
+    }
+
+    public <E> List<Map<String, Object>> findAll(Class<E> type, Specification<E> spec, Map<String, String> columns) {
+        return findAll(type, spec, columns, Map.of());
+    }
+
+    public <E> List<Map<String, Object>> findAll(Class<E> type, Specification<E> spec, Map<String, String> columns,
+                                                 Map<String, Computed<E>> computed) {
+        TypedQuery<Tuple> query = select(type, spec, columns, computed, Sort.unsorted());
+        return toRows(query.getResultList(), fieldNames(columns, computed));
+    }
+
+    // Keyset use: the Specification already starts after the cursor, so the first rows are the page
+    public <E> List<Map<String, Object>> findAll(Class<E> type, Specification<E> spec,
+                                                 Map<String, String> columns, Sort sort, int limit) {
+        TypedQuery<Tuple> query = select(type, spec, columns, Map.of(), sort);
+        query.setMaxResults(limit);
+        return toRows(query.getResultList(), columns.keySet());
+    }
+
+    private <E> TypedQuery<Tuple> select(Class<E> type, Specification<E> spec, Map<String, String> columns,
+                                         Map<String, Computed<E>> computed, Sort sort) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<E> root = query.from(type);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        columns.forEach((field, attribute) -> selections.add(path(root, attribute).alias(field)));
+        computed.forEach((field, expression) -> selections.add(expression.select(root, cb).alias(field)));
+        query.multiselect(selections);
+        query.where(spec.toPredicate(root, query, cb));
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return em.createQuery(query);
+    }
+
+    private <E> long count(Class<E> type, Specification<E> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<E> root = query.from(type);
+        query.select(cb.count(root));
+        query.where(spec.toPredicate(root, query, cb));
+        return em.createQuery(query).getSingleResult();
+    }
+
+    private static Path<?> path(Root<?> root, String attribute) {
+        Path<?> path = root;
+        for (String part : attribute.split("\\.")) {
+            path = path.get(part);
+        }
+        return path;
+    }
+
+    private static Set<String> fieldNames(Map<String, String> columns, Map<String, ?> computed) {
+        Set<String> fields = new LinkedHashSet<>(columns.keySet());
+        fields.addAll(computed.keySet());
+        return fields;
+    }
+
+    private static List<Map<String, Object>> toRows(List<Tuple> tuples, Set<String> fields) {
+        return tuples.stream()
+                .map(tuple -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    fields.forEach(field -> row.put(field, tuple.get(field)));
+                    return row;
+                })
+                .toList();
+    }
+}
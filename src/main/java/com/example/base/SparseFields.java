@@ -0,0 +1,30 @@
+package com.example.base;
+
+import com.example.exceptions.BadRequestException;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Parses a ?fields=a,b,c parameter against the fields a resource exposes, keeping request order
+public final class SparseFields {
+
+    private SparseFields() {}
+
+    public static Set<String> parse(String fields, Set<String> allowed) {
+        Set<String> selected = new LinkedHashSet<>();
+        Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .forEach(field -> {
+                    if (!allowed.contains(field)) {
+                        throw new BadRequestException("Unknown field: " + field + ", allowed: " + allowed);
+                    }
+                    selected.add(field);
+                });
+        if (selected.isEmpty()) {
+            throw new BadRequestException("fields must name at least one of: " + allowed);
+        }
+        return selected;
+    }
+}
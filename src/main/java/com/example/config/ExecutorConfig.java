@@ -1,5 +1,6 @@
 package com.example.config;
 
+import com.example.security.PasswordProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -21,4 +22,17 @@ public class ExecutorConfig {
         executor.initialize();
         return executor;
     }
+
+    // Password hashing only, so a login burst can never take the request threads' CPU
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(PasswordProperties props) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(props.getHashThreads());      // concurrency cap
+        executor.setMaxPoolSize(props.getHashThreads());
+        executor.setQueueCapacity(props.getHashQueueCapacity()); // rejects (503) beyond this
+        executor.setThreadNamePrefix("pw-hash-");
+        executor.setTaskDecorator(MdcRunnableWrapper::new);
+        executor.initialize();
+        return executor;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.example.config;
+
+import com.example.sync.ListingETagInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ListingETagInterceptor listingETags;
+
+    public WebConfig(ListingETagInterceptor listingETags) {
+        this.listingETags = listingETags;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // single notes are versioned individually, see NoteController.get
+        registry.addInterceptor(listingETags)
+                .addPathPatterns(
+                        "/notes",
+                        "/notes/shared",
+                        "/notes/search",
+                        "/notes/folder/*",
+                        "/folders",
+                        "/folders/*"
+                );
+    }
+}
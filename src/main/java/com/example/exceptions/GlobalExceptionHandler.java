@@ -2,6 +2,7 @@ package com.example.exceptions;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -76,4 +77,40 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(409, ex.getMessage());
     }
 
+    @ExceptionHandler(GoneException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public ErrorResponse handleGone(GoneException ex) {
+        log.info("Gone: {}", ex.getMessage());
+        return new ErrorResponse(410, ex.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErrorResponse handlePreconditionFailed(PreconditionFailedException ex) {
+        log.info("Precondition failed: {}", ex.getMessage());
+        return new ErrorResponse(412, ex.getMessage());
+    }
+
+    // Two entity-based writes raced on the same @Version
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLock(OptimisticLockingFailureException ex) {
+        log.info("Concurrent modification: {}", ex.getMessage());
+        return new ErrorResponse(409, "Resource was modified concurrently, reload and retry");
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleBadRequest(BadRequestException ex) {
+        log.debug("Bad request: {}", ex.getMessage());
+        return new ErrorResponse(400, ex.getMessage());
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleUnavailable(ServiceUnavailableException ex) {
+        log.warn("Service unavailable: {}", ex.getMessage());
+        return new ErrorResponse(503, ex.getMessage());
+    }
+
 }
@@ -11,7 +11,8 @@ import java.time.Instant;
 public class Folder extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "folder_seq")
+    @SequenceGenerator(name = "folder_seq", sequenceName = "folders_id_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -0,0 +1,5 @@
+package com.example.folder;
+
+// Published by FolderService when a delete or restore cascades to the folder's notes
+public record FolderChangedEvent(Long ownerId, Long folderId) {
+}
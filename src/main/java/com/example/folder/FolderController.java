@@ -7,6 +7,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/folders")
@@ -29,6 +30,11 @@ public class FolderController {
         return folderService.getMyFolders(auth);
     }
 
+    // Sparse fieldset, e.g. ?fields=id,name
+    @GetMapping(params = "fields")
+    public List<Map<String, Object>> getMyFolderFields(@RequestParam String fields, Authentication auth) {
+        return folderService.getMyFolderFields(fields, auth);
+    }
 
     @GetMapping("/{id}")
     public FolderResponse get(@PathVariable Long id, Authentication auth) {
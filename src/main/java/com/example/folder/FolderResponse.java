@@ -29,10 +29,14 @@ public class FolderResponse {
     }
 
     public static FolderResponse fromEntity(Folder folder) {
+        return fromEntity(folder, folder.getOwner().getEmail());
+    }
+
+    public static FolderResponse fromEntity(Folder folder, String userName) {
         return new FolderResponse(
                 folder.getId(),
                 folder.getName(),
-                folder.getOwner().getEmail(),
+                userName,
                 folder.getCreatedAt(),
                 folder.getUpdatedAt()
         );
@@ -1,20 +1,26 @@
 package com.example.folder;
 
+import com.example.auth.AuthenticatedUser;
 import com.example.auth.CurrentUser;
 import com.example.auth.OwnerAction;
 import com.example.auth.OwnerAuthorization;
+import com.example.base.ProjectionQueries;
+import com.example.base.SparseFields;
 import com.example.exceptions.NotFoundException;
-import com.example.note.Note;
 import com.example.note.NoteRepository;
-import com.example.note.NoteSpecs;
-import com.example.user.User;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class FolderService {
@@ -23,71 +29,108 @@ public class FolderService {
     private final CurrentUser currentUser;
     private final NoteRepository noteRepository;
     private final OwnerAuthorization ownedAuth;
+    private final ApplicationEventPublisher events;
+    private final ProjectionQueries projectionQueries;
+    private static final Logger log = LoggerFactory.getLogger(FolderService.class);
+    // ?fields= names that map to a column; userName is the caller's email, nothing to select
+    private static final Map<String, String> FOLDER_COLUMNS = Map.of(
+            "id", "id",
+            "name", "name",
+            "createdAt", "createdAt",
+            "updatedAt", "updatedAt"
+    );
+    private static final Set<String> FOLDER_FIELDS = Set.of("id", "name", "userName", "createdAt", "updatedAt");
     // Helper Specs
     /* ---------------------------------------------------------------------------------------------------*/
-    private Specification<Folder> ownedActiveFolder(Long id, User user) {
+    private Specification<Folder> ownedActiveFolder(Long id, AuthenticatedUser user) {
         return Specification
                 .allOf(FolderSpecs.withId(id))
-                .and(FolderSpecs.belongsTo(user))
+                .and(FolderSpecs.belongsTo(user.id()))
                 .and(FolderSpecs.notDeleted());
     }
 
-    private Specification<Folder> ownedDeletedFolder(Long id, User user) {
+    private Specification<Folder> ownedDeletedFolder(Long id, AuthenticatedUser user) {
         return Specification.
                 allOf(FolderSpecs.withId(id))
-                .and(FolderSpecs.belongsTo(user))
+                .and(FolderSpecs.belongsTo(user.id()))
                 .and(FolderSpecs.isDeleted());
     }
 
-    private Specification<Folder> allActive(User user) {
+    private Specification<Folder> allActive(AuthenticatedUser user) {
         return Specification
-                .allOf(FolderSpecs.belongsTo(user))
+                .allOf(FolderSpecs.belongsTo(user.id()))
                 .and(FolderSpecs.notDeleted());
     }
     /* ---------------------------------------------------------------------------------------------------*/
 
-    public FolderService(FolderRepository folderRepository, CurrentUser currentUser, NoteRepository noteRepository, OwnerAuthorization ownedAuth) {
+    public FolderService(FolderRepository folderRepository, CurrentUser currentUser, NoteRepository noteRepository, OwnerAuthorization ownedAuth,
+                         ApplicationEventPublisher events, ProjectionQueries projectionQueries) {
         this.folderRepository = folderRepository;
         this.currentUser = currentUser;
         this.noteRepository = noteRepository;
         this.ownedAuth = ownedAuth;
+        this.events = events;
+        this.projectionQueries = projectionQueries;
     }
 
     public FolderResponse create(String name, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
         ownedAuth.authorize(OwnerAction.CREATE);
-        Folder folder = new Folder(name, user);
+        Folder folder = new Folder(name, currentUser.reference(user));
         Instant now = Instant.now();
         folder.setCreatedAt(now);
         folder.setUpdatedAt(now);
         folderRepository.save(folder);
-        return FolderResponse.fromEntity(folder);
+        return FolderResponse.fromEntity(folder, user.email());
     }
 
     public List<FolderResponse> getMyFolders(Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
         Specification<Folder> spec = allActive(user);
         List<Folder> folders = folderRepository.findAll(spec);
                 return folders.stream()
-                .map(FolderResponse::fromEntity)
+                .map(folder -> FolderResponse.fromEntity(folder, user.email()))
                 .toList();
 
     }
 
+    // Sparse fieldset: selects only the requested columns and serializes only the requested fields
+    @Transactional
+    public List<Map<String, Object>> getMyFolderFields(String fields, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        Set<String> selected = SparseFields.parse(fields, FOLDER_FIELDS);
+        ownedAuth.authorize(OwnerAction.READ);
+
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "id");
+        selected.stream()
+                .filter(FOLDER_COLUMNS::containsKey)
+                .forEach(field -> columns.put(field, FOLDER_COLUMNS.get(field)));
+
+        return projectionQueries.findAll(Folder.class, allActive(user), columns).stream()
+                .map(row -> {
+                    Map<String, Object> out = new LinkedHashMap<>();
+                    for (String field : selected) {
+                        out.put(field, field.equals("userName") ? user.email() : row.get(field));
+                    }
+                    return out;
+                })
+                .toList();
+    }
 
     public FolderResponse getById(Long id, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
 
         Specification<Folder> spec = ownedActiveFolder(id, user);
 
         Folder folder = folderRepository.findOne(spec)
                 .orElseThrow(() -> new NotFoundException("Folder not found"));
         ownedAuth.authorize(OwnerAction.READ);
-        return FolderResponse.fromEntity(folder);
+        return FolderResponse.fromEntity(folder, user.email());
     }
 
     public FolderResponse update(Long id, String name, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
 
         Specification<Folder> spec = ownedActiveFolder(id, user);
 
@@ -96,13 +139,13 @@ public class FolderService {
         ownedAuth.authorize(OwnerAction.UPDATE);
         folder.setName(name);
         folderRepository.save(folder);
-        return FolderResponse.fromEntity(folder);
+        return FolderResponse.fromEntity(folder, user.email());
     }
 
 
     @Transactional
     public void delete(Long id, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
 
         Specification<Folder> spec = ownedActiveFolder(id, user);
         ownedAuth.authorize(OwnerAction.DELETE);
@@ -114,27 +157,18 @@ public class FolderService {
 
         // 1. Soft-delete folder
         folder.setDeletedAt(now);
-
-        // 2. Cascade soft-delete notes
-        List<Note> notes = noteRepository.findAll(
-                NoteSpecs.inFolder(folder.getId())
-                        .and(NoteSpecs.notDeleted())
-        );
-
-        for (Note note : notes) {
-            note.setDeletedAt(now);
-            note.setCascadeDeletedAt(now);
-            note.setUpdatedAt(now);
-        }
-
-        noteRepository.saveAll(notes);
         folderRepository.save(folder);
+
+        // 2. Cascade soft-delete notes, one UPDATE whatever the folder size
+        int notes = noteRepository.cascadeSoftDeleteByFolder(folder.getId(), now);
+        log.info("Folder deleted: folderId={}, cascadedNotes={}", folder.getId(), notes);
+        events.publishEvent(new FolderChangedEvent(user.id(), folder.getId()));
     }
 
 
     @Transactional
     public void restore(Long id, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
 
         Specification<Folder> spec = ownedDeletedFolder(id, user);
         ownedAuth.authorize(OwnerAction.UPDATE);
@@ -144,21 +178,13 @@ public class FolderService {
 
         Instant now = Instant.now();
 
-
         folder.setUpdatedAt(now);
-
-        List<Note> notes = noteRepository.findAll(
-                NoteSpecs.inFolder(folder.getId())
-                        .and(NoteSpecs.isCascadeDeleted())
-        );
-
-        for (Note note : notes) {
-                note.setDeletedAt(null);
-                note.setCascadeDeletedAt(null);
-                note.setUpdatedAt(now);
-            }
         folder.setDeletedAt(null);
-        noteRepository.saveAll(notes);
         folderRepository.save(folder);
+
+        // Brings back only what the folder delete cascaded, in one UPDATE
+        int notes = noteRepository.restoreCascadeDeletedByFolder(folder.getId(), now);
+        log.info("Folder restored: folderId={}, restoredNotes={}", folder.getId(), notes);
+        events.publishEvent(new FolderChangedEvent(user.id(), folder.getId()));
     }
 }
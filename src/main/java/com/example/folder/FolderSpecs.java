@@ -1,7 +1,6 @@
 package com.example.folder;
 
 import com.example.note.Note;
-import com.example.user.User;
 import org.springframework.data.jpa.domain.Specification;
 
 public class FolderSpecs {
@@ -9,8 +8,8 @@ public class FolderSpecs {
         return (root, query, cb) -> cb.equal(root.get("id"), id);
     }
 
-    public static Specification<Folder> belongsTo(User user) {
-        return (root, query, cb) -> cb.equal(root.get("owner"), user);
+    public static Specification<Folder> belongsTo(Long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("owner").get("id"), ownerId);
     }
 
     public static Specification<Folder> notDeleted() {
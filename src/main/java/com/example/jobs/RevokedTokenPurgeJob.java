@@ -0,0 +1,51 @@
+package com.example.jobs;
+
+import com.example.revoked.RevokedTokenRepository;
+import com.example.security.JwtProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Component
+public class RevokedTokenPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger("JOBS");
+    private static final int BATCH_SIZE = 1_000;
+
+    private final RevokedTokenRepository revokedTokens;
+    private final JwtProperties jwtProperties;
+
+    public RevokedTokenPurgeJob(RevokedTokenRepository revokedTokens, JwtProperties jwtProperties) {
+        this.revokedTokens = revokedTokens;
+        this.jwtProperties = jwtProperties;
+    }
+
+    // Not @Transactional on purpose: every chunk commits on its own
+    @Scheduled(fixedDelay = 300_000) // every 5 minutes
+    public void purgeExpired() {
+        MDC.put("traceId", UUID.randomUUID().toString().substring(0, 8));
+        try {
+            Instant now = Instant.now();
+            // legacy rows have no expires_at, anything revoked a full token lifetime ago is dead
+            Instant legacyCutoff = now.minusMillis(jwtProperties.getExpirationMs());
+
+            int total = 0;
+            int deleted;
+            do {
+                deleted = revokedTokens.purgeExpired(now, legacyCutoff, BATCH_SIZE);
+                total += deleted;
+            } while (deleted == BATCH_SIZE);
+
+            if (total > 0) {
+                log.info("Purged expired revoked tokens: {}", total);
+            }
+        } finally {
+            MDC.clear();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.jobs;
+
+import com.example.shared.SharedLinkStatsQueries;
+import com.example.shared.SharedLinkViewCounter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+// Writes the view counts SharedLinkViewCounter buffered since the last run, one batch per run
+@Component
+public class SharedLinkStatsFlushJob {
+
+    private static final Logger log = LoggerFactory.getLogger("JOBS");
+    private final SharedLinkViewCounter counter;
+    private final SharedLinkStatsQueries stats;
+
+    public SharedLinkStatsFlushJob(SharedLinkViewCounter counter, SharedLinkStatsQueries stats) {
+        this.counter = counter;
+        this.stats = stats;
+    }
+
+    @Scheduled(fixedDelayString = "${shared-link.stats-flush-ms:10000}")
+    public void flush() {
+        MDC.put("traceId", UUID.randomUUID().toString().substring(0, 8));
+        try {
+            List<SharedLinkViewCounter.Pending> rows = counter.drain();
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                stats.addViews(rows);
+                log.debug("Flushed shared link stats: links={}", rows.size());
+            } catch (DataAccessException e) {
+                // kept for the next run rather than dropped
+                counter.restore(rows);
+                log.warn("Shared link stats flush failed, retrying next run: links={}", rows.size(), e);
+            }
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    // Runs before the datasource closes, it depends on it
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.jobs;
 
 import com.example.note.NoteRepository;
+import com.example.sync.SyncProperties;
+import com.example.sync.SyncQueries;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,17 +19,25 @@ public class SoftDeleteCleanupJob {
 
     private static final Logger log = LoggerFactory.getLogger("JOBS");
     private final NoteRepository notes;
+    private final SyncQueries syncQueries;
+    private final SyncProperties syncProperties;
 
-    public SoftDeleteCleanupJob(NoteRepository notes) {
+    public SoftDeleteCleanupJob(NoteRepository notes, SyncQueries syncQueries, SyncProperties syncProperties) {
         this.notes = notes;
+        this.syncQueries = syncQueries;
+        this.syncProperties = syncProperties;
     }
-    @Transactional
+    // Not transactional itself: each owner's notes go in their own short transaction, as the purge
+    // blocks that owner's writes until it commits
     @Scheduled(fixedDelay = 60_000) // every minute
     public void purgeDeletedNotes() {
         MDC.put("traceId", UUID.randomUUID().toString().substring(0, 8));
         try {
             Instant cutoff = Instant.now().minus(30, ChronoUnit.DAYS);
-            int purged = notes.deleteByDeletedAtBefore(cutoff);
+            int purged = 0;
+            for (Long ownerId : notes.findOwnerIdsWithDeletedBefore(cutoff)) {
+                purged += notes.deleteByOwnerIdAndDeletedAtBefore(ownerId, cutoff);
+            }
             if (purged > 0) {
                 log.info("Purged soft-deleted notes: {}", purged);
             }
@@ -35,4 +45,20 @@ public class SoftDeleteCleanupJob {
             MDC.clear();
         }
     }
+
+    // Purges leave sync tombstones (V9 trigger); past retention, clients that missed them resync from scratch
+    @Transactional
+    @Scheduled(fixedDelay = 3_600_000) // every hour
+    public void purgeExpiredTombstones() {
+        MDC.put("traceId", UUID.randomUUID().toString().substring(0, 8));
+        try {
+            Instant cutoff = Instant.now().minus(syncProperties.getTombstoneRetentionDays(), ChronoUnit.DAYS);
+            long purged = syncQueries.purgeTombstonesBefore(cutoff);
+            if (purged > 0) {
+                log.info("Purged expired sync tombstones: {}", purged);
+            }
+        } finally {
+            MDC.clear();
+        }
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.note;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchGetRequest(
+
+        @NotEmpty(message = "At least one id is required")
+        @Size(max = 500, message = "Cannot fetch more than 500 notes at once")
+        List<@NotNull Long> ids
+
+) {}
@@ -0,0 +1,9 @@
+package com.example.note;
+
+import java.util.List;
+
+// notes in request order; notFound holds ids that are missing, deleted or not the caller's
+public record BatchGetResponse(
+        List<NoteResponse> notes,
+        List<Long> notFound
+) {}
@@ -0,0 +1,10 @@
+package com.example.note;
+
+public enum BulkAction {
+    CREATE,
+    UPDATE,
+    MOVE,
+    DELETE,
+    RESTORE,
+    TAG
+}
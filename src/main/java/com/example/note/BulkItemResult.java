@@ -0,0 +1,21 @@
+package com.example.note;
+
+// Outcome of operations[index]; noteId is the created id for CREATE
+public record BulkItemResult(
+        int index,
+        BulkItemStatus status,
+        Long noteId,
+        String error
+) {
+    static BulkItemResult ok(int index, Long noteId) {
+        return new BulkItemResult(index, BulkItemStatus.OK, noteId, null);
+    }
+
+    static BulkItemResult notFound(int index, Long noteId, String error) {
+        return new BulkItemResult(index, BulkItemStatus.NOT_FOUND, noteId, error);
+    }
+
+    static BulkItemResult invalid(int index, Long noteId, String error) {
+        return new BulkItemResult(index, BulkItemStatus.INVALID, noteId, error);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.note;
+
+public enum BulkItemStatus {
+    OK,
+    NOT_FOUND,
+    INVALID
+}
@@ -0,0 +1,17 @@
+package com.example.note;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Set;
+
+// One item of a bulk request; which of the other fields are needed depends on the action
+public record BulkNoteOperation(
+
+        @NotNull(message = "Action is required")
+        BulkAction action,
+        Long noteId,   // all but CREATE
+        Long folderId, // CREATE, MOVE
+        String content, // CREATE, UPDATE
+        Set<String> tags // TAG
+
+) {}
@@ -0,0 +1,16 @@
+package com.example.note;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkNoteRequest(
+
+        @NotEmpty(message = "At least one operation is required")
+        @Size(max = 1000, message = "Cannot apply more than 1000 operations at once")
+        List<@Valid @NotNull BulkNoteOperation> operations
+
+) {}
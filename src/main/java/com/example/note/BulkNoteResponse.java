@@ -0,0 +1,8 @@
+package com.example.note;
+
+import java.util.List;
+
+// One result per operation, in request order
+public record BulkNoteResponse(
+        List<BulkItemResult> results
+) {}
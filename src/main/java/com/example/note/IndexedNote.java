@@ -0,0 +1,5 @@
+package com.example.note;
+
+// Just what the embedded search index needs from a note
+public record IndexedNote(Long id, String content) {
+}
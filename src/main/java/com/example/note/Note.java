@@ -5,6 +5,7 @@ import com.example.folder.Folder;
 import com.example.tag.Tag;
 import com.example.user.User;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.Instant;
 import java.util.HashSet;
@@ -14,7 +15,8 @@ import java.util.Set;
 public class Note extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_seq")
+    @SequenceGenerator(name = "note_seq", sequenceName = "note_id_seq", allocationSize = 50)
     private Long id;
 
     private Instant deletedAt;
@@ -22,15 +24,21 @@ public class Note extends BaseEntity {
 
     private String content;
 
+    // Bumped on every write; NoteService checks it against If-Match in the UPDATE itself
+    @Version
+    private Long version;
 
-    @ManyToOne(optional = false)
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     private User owner;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     private Folder folder;
 
 
+    // Tags of a whole page load in one IN query instead of one SELECT per note
     @ManyToMany
+    @BatchSize(size = 100)
     @JoinTable(
             name = "note_tags",
             joinColumns = @JoinColumn(name = "note_id"),
@@ -68,6 +76,10 @@ public class Note extends BaseEntity {
         return content;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public boolean isOwnedBy(User user) {
         return this.owner.equals(user);
     }
@@ -0,0 +1,360 @@
+package com.example.note;
+
+import com.example.auth.AuthenticatedUser;
+import com.example.auth.CurrentUser;
+import com.example.auth.OwnerAction;
+import com.example.auth.OwnerAuthorization;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies many note changes in one transaction. Every operation is checked up front against two
+ * set-based reads (the referenced notes, the referenced folders) with the same ownership and soft
+ * delete rules as NoteService, then the accepted ones run as one JDBC batch per kind of statement.
+ * Operations are validated in request order against the state earlier items leave behind, so
+ * "update then delete" works and "delete then update" reports NOT_FOUND.
+ */
+@Service
+public class NoteBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteBulkService.class);
+    // note.content column size
+    private static final int MAX_CONTENT_LENGTH = 255;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final CurrentUser currentUser;
+    private final OwnerAuthorization ownedAuth;
+    private final ApplicationEventPublisher events;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public NoteBulkService(NamedParameterJdbcTemplate jdbc,
+                           CurrentUser currentUser,
+                           OwnerAuthorization ownedAuth,
+                           ApplicationEventPublisher events) {
+        this.jdbc = jdbc;
+        this.currentUser = currentUser;
+        this.ownedAuth = ownedAuth;
+        this.events = events;
+    }
+
+    @Transactional
+    public BulkNoteResponse apply(List<BulkNoteOperation> operations, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        operations.stream()
+                .map(op -> switch (op.action()) {
+                    case CREATE -> OwnerAction.CREATE;
+                    case DELETE -> OwnerAction.DELETE;
+                    default -> OwnerAction.UPDATE;
+                })
+                .distinct()
+                .forEach(ownedAuth::authorize);
+
+        // JDBC below must see pending entity changes, and the entities must not outlive it
+        em.flush();
+
+        Map<Long, NoteState> notes = loadNotes(user, operations);
+        Set<Long> folders = loadActiveFolders(user, operations);
+
+        BulkItemResult[] results = new BulkItemResult[operations.size()];
+        Map<BulkAction, List<Integer>> accepted = new EnumMap<>(BulkAction.class);
+        for (int i = 0; i < operations.size(); i++) {
+            BulkNoteOperation op = operations.get(i);
+            results[i] = validate(i, op, notes, folders);
+            if (results[i] == null) {
+                accepted.computeIfAbsent(op.action(), a -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // the validation pass already rejected every order-dependent combination
+        OffsetDateTime at = OffsetDateTime.now(ZoneOffset.UTC);
+        restore(accepted.getOrDefault(BulkAction.RESTORE, List.of()), operations, at, results);
+        create(accepted.getOrDefault(BulkAction.CREATE, List.of()), operations, user, at, results);
+        update(accepted.getOrDefault(BulkAction.UPDATE, List.of()), operations, at, results);
+        move(accepted.getOrDefault(BulkAction.MOVE, List.of()), operations, at, results);
+        tag(accepted.getOrDefault(BulkAction.TAG, List.of()), operations, at, results);
+        delete(accepted.getOrDefault(BulkAction.DELETE, List.of()), operations, at, results);
+        em.clear();
+
+        publishChanges(user, operations, results, notes);
+        log.info("Bulk note operations applied: userId={}, operations={}, accepted={}",
+                user.id(), operations.size(), accepted.values().stream().mapToInt(List::size).sum());
+        return new BulkNoteResponse(List.of(results));
+    }
+
+    // Returns null when the operation is accepted, and advances the simulated note state
+    private BulkItemResult validate(int i, BulkNoteOperation op, Map<Long, NoteState> notes, Set<Long> folders) {
+        if (op.content() != null && op.content().length() > MAX_CONTENT_LENGTH) {
+            return BulkItemResult.invalid(i, op.noteId(), "Content cannot exceed " + MAX_CONTENT_LENGTH + " characters");
+        }
+
+        if (op.action() == BulkAction.CREATE) {
+            if (op.folderId() == null || !folders.contains(op.folderId())) {
+                return BulkItemResult.notFound(i, null, "Folder not found");
+            }
+            return null;
+        }
+
+        if (op.noteId() == null) {
+            return BulkItemResult.invalid(i, null, "noteId is required");
+        }
+        NoteState note = notes.get(op.noteId());
+        if (note == null || note.folderDeleted) {
+            return BulkItemResult.notFound(i, op.noteId(), "Note not found");
+        }
+
+        if (op.action() == BulkAction.RESTORE) {
+            if (!note.deleted) {
+                return BulkItemResult.notFound(i, op.noteId(), "Note not found");
+            }
+            if (note.deletedHere) {
+                return BulkItemResult.invalid(i, op.noteId(), "Note was deleted earlier in this request");
+            }
+            note.deleted = false;
+            return null;
+        }
+
+        if (note.deleted) {
+            return BulkItemResult.notFound(i, op.noteId(), "Note not found");
+        }
+        switch (op.action()) {
+            case UPDATE -> note.content = op.content();
+            case MOVE -> {
+                if (op.folderId() == null || !folders.contains(op.folderId())) {
+                    return BulkItemResult.notFound(i, op.noteId(), "Folder not found");
+                }
+            }
+            case TAG -> {
+                if (normalize(op.tags()).isEmpty()) {
+                    return BulkItemResult.invalid(i, op.noteId(), "At least one tag is required");
+                }
+            }
+            case DELETE -> {
+                note.deleted = true;
+                note.deletedHere = true;
+            }
+            default -> throw new IllegalStateException("Unexpected action " + op.action());
+        }
+        return null;
+    }
+
+    private Map<Long, NoteState> loadNotes(AuthenticatedUser user, List<BulkNoteOperation> operations) {
+        Set<Long> ids = operations.stream()
+                .map(BulkNoteOperation::noteId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, NoteState> notes = new HashMap<>();
+        if (ids.isEmpty()) {
+            return notes;
+        }
+        jdbc.query("""
+                        SELECT n.id, n.content, n.deleted_at IS NOT NULL AS deleted, f.deleted_at IS NOT NULL AS folder_deleted
+                        FROM note n
+                        JOIN folders f ON f.id = n.folder_id
+                        WHERE n.owner_id = :ownerId AND n.id IN (:ids)
+                        """,
+                new MapSqlParameterSource("ownerId", user.id()).addValue("ids", ids),
+                rs -> {
+                    notes.put(rs.getLong("id"), new NoteState(
+                            rs.getString("content"),
+                            rs.getBoolean("deleted"),
+                            rs.getBoolean("folder_deleted")));
+                });
+        return notes;
+    }
+
+    private Set<Long> loadActiveFolders(AuthenticatedUser user, List<BulkNoteOperation> operations) {
+        Set<Long> ids = operations.stream()
+                .filter(op -> op.action() == BulkAction.CREATE || op.action() == BulkAction.MOVE)
+                .map(BulkNoteOperation::folderId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbc.queryForList("""
+                        SELECT id FROM folders
+                        WHERE owner_id = :ownerId AND deleted_at IS NULL AND id IN (:ids)
+                        """,
+                new MapSqlParameterSource("ownerId", user.id()).addValue("ids", ids),
+                Long.class));
+    }
+
+    private void create(List<Integer> items, List<BulkNoteOperation> operations, AuthenticatedUser user,
+                        OffsetDateTime at, BulkItemResult[] results) {
+        if (items.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = items.stream()
+                .map(i -> new MapSqlParameterSource()
+                        .addValue("now", at)
+                        .addValue("content", operations.get(i).content())
+                        .addValue("ownerId", user.id())
+                        .addValue("folderId", operations.get(i).folderId()))
+                .toArray(SqlParameterSource[]::new);
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate("""
+                        INSERT INTO note (created_at, updated_at, content, owner_id, folder_id, visibility)
+                        VALUES (:now, :now, :content, :ownerId, :folderId, 'PRIVATE')
+                        """,
+                batch, keys, new String[]{"id"});
+
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int k = 0; k < items.size(); k++) {
+            int i = items.get(k);
+            results[i] = BulkItemResult.ok(i, ((Number) ids.get(k).get("id")).longValue());
+        }
+    }
+
+    private void update(List<Integer> items, List<BulkNoteOperation> operations, OffsetDateTime at,
+                        BulkItemResult[] results) {
+        batch("UPDATE note SET content = :content, updated_at = :now, version = version + 1 WHERE id = :id",
+                items, operations, at, results,
+                (op, params) -> params.addValue("content", op.content()));
+    }
+
+    private void move(List<Integer> items, List<BulkNoteOperation> operations, OffsetDateTime at,
+                      BulkItemResult[] results) {
+        batch("UPDATE note SET folder_id = :folderId, updated_at = :now, version = version + 1 WHERE id = :id",
+                items, operations, at, results,
+                (op, params) -> params.addValue("folderId", op.folderId()));
+    }
+
+    // Same as NoteService.restore: cascade_deleted_at is left for the folder restore to clear
+    private void restore(List<Integer> items, List<BulkNoteOperation> operations, OffsetDateTime at,
+                         BulkItemResult[] results) {
+        batch("UPDATE note SET deleted_at = NULL, updated_at = :now, version = version + 1 WHERE id = :id",
+                items, operations, at, results, (op, params) -> {});
+    }
+
+    private void delete(List<Integer> items, List<BulkNoteOperation> operations, OffsetDateTime at,
+                        BulkItemResult[] results) {
+        batch("UPDATE note SET deleted_at = :now, updated_at = :now, version = version + 1 WHERE id = :id",
+                items, operations, at, results, (op, params) -> {});
+    }
+
+    private void tag(List<Integer> items, List<BulkNoteOperation> operations, OffsetDateTime at,
+                     BulkItemResult[] results) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Set<String> names = items.stream()
+                .flatMap(i -> normalize(operations.get(i).tags()).stream())
+                .collect(Collectors.toSet());
+        jdbc.batchUpdate("INSERT INTO tag (name) VALUES (:name) ON CONFLICT (name) DO NOTHING",
+                names.stream()
+                        .map(name -> new MapSqlParameterSource("name", name))
+                        .toArray(SqlParameterSource[]::new));
+
+        Map<String, Long> tagIds = new HashMap<>();
+        jdbc.query("SELECT id, name FROM tag WHERE name IN (:names)",
+                new MapSqlParameterSource("names", names),
+                rs -> {
+                    tagIds.put(rs.getString("name"), rs.getLong("id"));
+                });
+
+        List<SqlParameterSource> links = new ArrayList<>();
+        for (int i : items) {
+            Long noteId = operations.get(i).noteId();
+            normalize(operations.get(i).tags()).forEach(name -> links.add(
+                    new MapSqlParameterSource("noteId", noteId).addValue("tagId", tagIds.get(name))));
+        }
+        jdbc.batchUpdate("INSERT INTO note_tags (note_id, tag_id) VALUES (:noteId, :tagId) ON CONFLICT DO NOTHING",
+                links.toArray(SqlParameterSource[]::new));
+
+        // tagging touches the note like NoteService.addTags does
+        batch("UPDATE note SET updated_at = :now, version = version + 1 WHERE id = :id",
+                items, operations, at, results, (op, params) -> {});
+    }
+
+    private void batch(String sql, List<Integer> items, List<BulkNoteOperation> operations, OffsetDateTime at,
+                       BulkItemResult[] results, ParameterCustomizer customizer) {
+        if (items.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = items.stream()
+                .map(i -> {
+                    BulkNoteOperation op = operations.get(i);
+                    MapSqlParameterSource params = new MapSqlParameterSource()
+                            .addValue("id", op.noteId())
+                            .addValue("now", at);
+                    customizer.customize(op, params);
+                    return params;
+                })
+                .toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate(sql, batch);
+        items.forEach(i -> results[i] = BulkItemResult.ok(i, operations.get(i).noteId()));
+    }
+
+    private void publishChanges(AuthenticatedUser user, List<BulkNoteOperation> operations,
+                                BulkItemResult[] results, Map<Long, NoteState> notes) {
+        for (int i = 0; i < operations.size(); i++) {
+            BulkItemResult result = results[i];
+            if (result.status() != BulkItemStatus.OK) {
+                continue;
+            }
+            BulkNoteOperation op = operations.get(i);
+            NoteState state = notes.get(result.noteId());
+            switch (op.action()) {
+                case CREATE -> events.publishEvent(new NoteChangedEvent(user.id(), result.noteId(), op.content()));
+                // moves and tags leave the content alone, but cached shared links show folder and tags
+                case UPDATE, RESTORE, DELETE, MOVE, TAG -> events.publishEvent(new NoteChangedEvent(
+                        user.id(), result.noteId(), state.deleted ? null : state.content));
+            }
+        }
+    }
+
+    // Same normalization as NoteService.addTags
+    private static Set<String> normalize(Set<String> tags) {
+        if (tags == null) {
+            return Set.of();
+        }
+        return tags.stream()
+                .filter(Objects::nonNull)
+                .map(name -> name.trim().toLowerCase())
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    @FunctionalInterface
+    private interface ParameterCustomizer {
+        void customize(BulkNoteOperation op, MapSqlParameterSource params);
+    }
+
+    // What the validation pass knows about a referenced note, updated as operations are accepted
+    private static class NoteState {
+        String content;
+        boolean deleted;
+        final boolean folderDeleted;
+        boolean deletedHere;
+
+        NoteState(String content, boolean deleted, boolean folderDeleted) {
+            this.content = content;
+            this.deleted = deleted;
+            this.folderDeleted = folderDeleted;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.note;
+
+// Published after every note write, content is null once the note is no longer active
+public record NoteChangedEvent(Long ownerId, Long noteId, String content) {
+}
@@ -1,17 +1,23 @@
 package com.example.note;
 
+import com.example.base.ETags;
+import com.example.shared.SharedLinkStatsResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.context.request.WebRequest;
 
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @RestController
@@ -19,9 +25,11 @@ import java.util.Set;
 public class NoteController {
 // Dumb controller
     private final NoteService noteService;
+    private final NoteBulkService noteBulkService;
 
-    public NoteController(NoteService noteService) {
+    public NoteController(NoteService noteService, NoteBulkService noteBulkService) {
         this.noteService = noteService;
+        this.noteBulkService = noteBulkService;
     }
 
     @PostMapping
@@ -34,11 +42,31 @@ public class NoteController {
         return ResponseEntity.status(HttpStatus.CREATED).body(note);
     }
 
+    // The ETag is the note's version: send it as If-None-Match to poll, as If-Match to write conditionally
     @GetMapping("/{id}")
-    public NoteResponse get(@PathVariable Long id, Authentication auth) {
+    public ResponseEntity<NoteResponse> get(@PathVariable Long id, WebRequest request, Authentication auth) {
+        // compares versions before the note is loaded; checkNotModified has already set the 304
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(ETags.of(noteService.getVersion(id, auth)))) {
+            return null;
+        }
+        NoteResponse note = noteService.getById(id, auth);
+        return ResponseEntity.ok()
+                .eTag(ETags.of(note.getVersion()))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(note);
+    }
 
-        return noteService.getById(id, auth);
+    // Many creates/updates/moves/deletes/restores/tags in one transaction, one result per operation
+    @PostMapping("/bulk")
+    public BulkNoteResponse bulk(@Valid @RequestBody BulkNoteRequest request, Authentication auth) {
+        return noteBulkService.apply(request.operations(), auth);
+    }
 
+    // Multi-get: owned, active notes for all ids in one query, plus the ids that were not found
+    @PostMapping("/batch-get")
+    public BatchGetResponse batchGet(@Valid @RequestBody BatchGetRequest request, Authentication auth) {
+        return noteService.getByIds(request.ids(), auth);
     }
 
     @GetMapping
@@ -49,21 +77,62 @@ public class NoteController {
         return noteService.getMyFilteredNotes(pageable, auth);
     }
 
+    // Sparse fieldset, e.g. ?fields=id,updatedAt
+    @GetMapping(params = {"fields", "!view", "!cursor"})
+    public PageResponse<Map<String, Object>> getMyNoteFields(
+            @RequestParam String fields,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC)
+            Pageable pageable,
+            Authentication auth) {
+        return noteService.getMyNoteFields(fields, pageable, auth);
+    }
+
+    // Summary view: no note body, a short preview instead
+    @GetMapping(params = {"view=summary", "!cursor"})
+    public PageResponse<NoteSummary> getMySummaries(
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC)
+            Pageable pageable,
+            Authentication auth) {
+        return noteService.getMySummaries(pageable, auth);
+    }
+
+    // Keyset mode: pass cursor= (empty) for the first page, then the returned nextCursor
+    @GetMapping(params = "cursor")
+    public CursorPage<NoteResponse> getMyNotesAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication auth) {
+        return noteService.getMyNotesAfter(cursor, size, auth);
+    }
+
+    @GetMapping(params = {"cursor", "fields"})
+    public CursorPage<Map<String, Object>> getMyNoteFieldsAfter(
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication auth) {
+        return noteService.getMyNoteFieldsAfter(fields, cursor, size, auth);
+    }
+
+    // If-Match: "<version>" turns a lost update into 412 Precondition Failed
     @PatchMapping("/{id}")
-    public NoteResponse update(
+    public ResponseEntity<NoteResponse> update(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateNoteRequest request,
             Authentication auth
     ) {
-        return noteService.update(id, request.content(), auth);
+        NoteResponse note = noteService.update(id, request.content(), ETags.expectedVersion(ifMatch), auth);
+        return ResponseEntity.ok().eTag(ETags.of(note.getVersion())).body(note);
     }
 
     @DeleteMapping("/{id}")
     public void delete(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication auth
     ) {
-         noteService.delete(id, auth);
+         noteService.delete(id, ETags.expectedVersion(ifMatch), auth);
     }
 
     @GetMapping("/folder/{folderId}")
@@ -74,6 +143,23 @@ public class NoteController {
         return noteService.getByFolder(folderId, auth);
     }
 
+    @GetMapping(value = "/folder/{folderId}", params = "view=summary")
+    public List<NoteSummary> getSummariesByFolder(
+            @PathVariable Long folderId,
+            Authentication auth
+    ) {
+        return noteService.getSummariesByFolder(folderId, auth);
+    }
+
+    @GetMapping(value = "/folder/{folderId}", params = {"fields", "!view"})
+    public List<Map<String, Object>> getNoteFieldsByFolder(
+            @PathVariable Long folderId,
+            @RequestParam String fields,
+            Authentication auth
+    ) {
+        return noteService.getNoteFieldsByFolder(folderId, fields, auth);
+    }
+
     @PostMapping("/{id}/share")
     public ResponseEntity<String> share(@PathVariable Long id,
                         @Valid @RequestBody CreateSharedLinkRequest request,
@@ -85,6 +171,12 @@ public class NoteController {
         return ResponseEntity.status(HttpStatus.CREATED).body(token);
     }
 
+    // View counts lag reads by up to shared-link.stats-flush-ms
+    @GetMapping("/{id}/share/stats")
+    public List<SharedLinkStatsResponse> shareStats(@PathVariable Long id, Authentication auth) {
+        return noteService.getSharedLinkStats(id, auth);
+    }
+
     @GetMapping("/search")
     public PageResponse<NoteResponse> search(
             @RequestParam(required = false) String text,
@@ -97,6 +189,80 @@ public class NoteController {
         return noteService.searchMyNotes(text, folderId, pageable, tagName, auth);
     }
 
+    @GetMapping(value = "/search", params = {"fields", "!view", "!cursor", "!mode"})
+    public PageResponse<Map<String, Object>> searchFields(
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Long folderId,
+            @RequestParam(required = false) String tagName,
+            @RequestParam String fields,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC)
+            Pageable pageable,
+            Authentication auth
+    ) {
+        return noteService.searchMyNoteFields(text, folderId, tagName, fields, pageable, auth);
+    }
+
+    @GetMapping(value = "/search", params = {"view=summary", "!cursor", "!mode"})
+    public PageResponse<NoteSummary> searchSummaries(
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Long folderId,
+            @RequestParam(required = false) String tagName,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC)
+            Pageable pageable,
+            Authentication auth
+    ) {
+        return noteService.searchMySummaries(text, folderId, tagName, pageable, auth);
+    }
+
+    @GetMapping(value = "/search", params = {"cursor", "!mode"})
+    public CursorPage<NoteResponse> searchAfter(
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Long folderId,
+            @RequestParam(required = false) String tagName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication auth
+    ) {
+        return noteService.searchMyNotesAfter(text, folderId, tagName, cursor, size, auth);
+    }
+
+    @GetMapping(value = "/search", params = {"cursor", "fields", "!mode"})
+    public CursorPage<Map<String, Object>> searchFieldsAfter(
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Long folderId,
+            @RequestParam(required = false) String tagName,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication auth
+    ) {
+        return noteService.searchMyNoteFieldsAfter(text, folderId, tagName, fields, cursor, size, auth);
+    }
+
+    // Full-text mode: ranked by relevance, each hit carries a highlighted snippet
+    @GetMapping(value = "/search", params = "mode=fulltext")
+    public PageResponse<NoteSearchHit> searchFullText(
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Long folderId,
+            @RequestParam(required = false) String tagName,
+            Pageable pageable,
+            Authentication auth
+    ) {
+        return noteService.searchMyNotesFullText(text, folderId, pageable, tagName, auth);
+    }
+
+    // Fuzzy mode: substring matches plus misspellings, ordered by similarity
+    @GetMapping(value = "/search", params = "mode=fuzzy")
+    public PageResponse<NoteSearchHit> searchFuzzy(
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Long folderId,
+            @RequestParam(required = false) String tagName,
+            Pageable pageable,
+            Authentication auth
+    ) {
+        return noteService.searchMyNotesFuzzy(text, folderId, pageable, tagName, auth);
+    }
+
     @PostMapping("/{id}/tags")
     public NoteResponse addTags(
             @PathVariable Long id,
@@ -116,8 +282,10 @@ public class NoteController {
     }
 
     @PostMapping("/{id}/restore")
-    public void restore(@PathVariable Long id, Authentication auth) {
-        noteService.restore(id, auth);
+    public void restore(@PathVariable Long id,
+                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                        Authentication auth) {
+        noteService.restore(id, ETags.expectedVersion(ifMatch), auth);
     }
 
     @GetMapping("/shared")
@@ -128,4 +296,13 @@ public class NoteController {
     ){
         return noteService.getAllShared(pageable, auth);
     }
+
+    @GetMapping(value = "/shared", params = "cursor")
+    public CursorPage<NoteResponse> getAllSharedAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication auth
+    ) {
+        return noteService.getAllSharedAfter(cursor, size, auth);
+    }
 }
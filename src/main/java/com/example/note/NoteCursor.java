@@ -0,0 +1,36 @@
+package com.example.note;
+
+import com.example.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+// Position after the last note of a keyset page, handed to clients as an opaque string
+public record NoteCursor(Instant createdAt, Long id) {
+
+    public static NoteCursor after(Note note) {
+        return new NoteCursor(note.getCreatedAt(), note.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt.getEpochSecond() + "." + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NoteCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int dot = raw.indexOf('.');
+            int colon = raw.indexOf(':');
+            Instant createdAt = Instant.ofEpochSecond(
+                    Long.parseLong(raw.substring(0, dot)),
+                    Long.parseLong(raw.substring(dot + 1, colon)));
+            return new NoteCursor(createdAt, Long.parseLong(raw.substring(colon + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
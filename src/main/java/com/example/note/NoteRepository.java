@@ -2,14 +2,98 @@ package com.example.note;
 
 import com.example.folder.Folder;
 import com.example.user.User;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 public interface NoteRepository extends JpaRepository<Note, Long>, JpaSpecificationExecutor<Note> {
     List<Note> findByOwner(User owner);
     List<Note> findByFolder(Folder folder);
-    int deleteByDeletedAtBefore(Instant cutoff);
+
+    // Purging takes the owner's change counter lock (V9) until commit, so it runs one owner per
+    // transaction and never holds several users' writes at once
+    @Query("select distinct n.owner.id from Note n where n.deletedAt < :cutoff")
+    List<Long> findOwnerIdsWithDeletedBefore(@Param("cutoff") Instant cutoff);
+
+    @Transactional
+    int deleteByOwnerIdAndDeletedAtBefore(Long ownerId, Instant cutoff);
+
+    // Notes deleted directly or with their folder, for caches on other nodes
+    @Query("select n.id from Note n where n.deletedAt >= :since")
+    List<Long> findIdsDeletedSince(@Param("since") Instant since);
+
+    // Folder cascade as single statements: cost does not depend on how many notes the folder holds.
+    // Flushes first and clears after, so no loaded Note keeps a stale deletedAt.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Note n
+            set n.deletedAt = :now, n.cascadeDeletedAt = :now, n.updatedAt = :now,
+                n.version = n.version + 1
+            where n.folder.id = :folderId
+              and n.deletedAt is null
+            """)
+    int cascadeSoftDeleteByFolder(@Param("folderId") Long folderId, @Param("now") Instant now);
+
+    // Only notes the folder delete took down; individually deleted ones stay deleted
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Note n
+            set n.deletedAt = null, n.cascadeDeletedAt = null, n.updatedAt = :now,
+                n.version = n.version + 1
+            where n.folder.id = :folderId
+              and n.cascadeDeletedAt is not null
+            """)
+    int restoreCascadeDeletedByFolder(@Param("folderId") Long folderId, @Param("now") Instant now);
+
+    // Conditional GET: same rules as NoteService.ownedActive, without reading the note itself
+    @Query("""
+            select n.version
+            from Note n
+            where n.id = :id
+              and n.owner.id = :ownerId
+              and n.deletedAt is null
+              and n.folder.deletedAt is null
+            """)
+    Optional<Long> findActiveVersion(@Param("id") Long id, @Param("ownerId") Long ownerId);
+
+    // Feeds NoteSearchIndex, only the columns it indexes
+    @Query("""
+            select new com.example.note.IndexedNote(n.id, n.content)
+            from Note n
+            where n.owner.id = :ownerId
+              and n.deletedAt is null
+              and n.folder.deletedAt is null
+            """)
+    List<IndexedNote> findIndexableByOwner(@Param("ownerId") Long ownerId);
+
+    // Tag names for a page of notes in one query
+    @Query("""
+            select new com.example.note.NoteTagName(n.id, t.name)
+            from Note n join n.tags t
+            where n.id in :ids
+            """)
+    List<NoteTagName> findTagNames(@Param("ids") Collection<Long> ids);
+
+    default Map<Long, Set<String>> findTagNamesByNote(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Set<String>> tags = new HashMap<>();
+        for (NoteTagName tag : findTagNames(ids)) {
+            tags.computeIfAbsent(tag.noteId(), id -> new HashSet<>()).add(tag.name());
+        }
+        return tags;
+    }
 }
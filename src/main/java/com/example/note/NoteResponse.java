@@ -19,6 +19,7 @@ public class NoteResponse {
     private Instant createdAt;
     private Instant updatedAt;
     private Set<String> tags;
+    private Long version;
 
 
 
@@ -47,15 +48,23 @@ public class NoteResponse {
     public Set<String> getTags() {
         return tags;
     }
+    public Long getVersion() {
+        return version;
+    }
 
 
 
 
     public static NoteResponse fromEntity(Note note) {
+        return fromEntity(note, note.getOwner().getEmail());
+    }
+
+    // For owner-scoped calls where the caller's email is already known, skips loading the owner
+    public static NoteResponse fromEntity(Note note, String userName) {
         NoteResponse r = new NoteResponse();
         r.id = note.getId();
         r.content = note.getContent();
-        r.userName = note.getOwner().getEmail();
+        r.userName = userName;
         r.folderId = note.getFolder().getId();
         r.createdAt = note.getCreatedAt();
         r.updatedAt = note.getUpdatedAt();
@@ -63,6 +72,21 @@ public class NoteResponse {
                 .stream()
                 .map(Tag::getName)
                 .collect(Collectors.toSet());
+        r.version = note.getVersion();
+        return r;
+    }
+
+    // For conditional writes, built straight from the RETURNING row
+    public static NoteResponse fromRow(NoteRow row, String userName) {
+        NoteResponse r = new NoteResponse();
+        r.id = row.id();
+        r.content = row.content();
+        r.userName = userName;
+        r.folderId = row.folderId();
+        r.createdAt = row.createdAt();
+        r.updatedAt = row.updatedAt();
+        r.tags = row.tags();
+        r.version = row.version();
         return r;
     }
 
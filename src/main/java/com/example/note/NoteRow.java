@@ -0,0 +1,16 @@
+package com.example.note;
+
+import java.time.Instant;
+import java.util.Set;
+
+// A note as returned by the RETURNING clause of a conditional write, no entity involved
+public record NoteRow(
+        Long id,
+        String content,
+        Long folderId,
+        Instant createdAt,
+        Instant updatedAt,
+        long version,
+        Set<String> tags
+) {
+}
@@ -0,0 +1,31 @@
+package com.example.note;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+// A note plus how well it matched; serialized flat, like NoteResponse with two extra fields
+public class NoteSearchHit {
+
+    private final NoteResponse note;
+    private final double rank;
+    private final String snippet;
+
+    public NoteSearchHit(NoteResponse note, double rank, String snippet) {
+        this.note = note;
+        this.rank = rank;
+        this.snippet = snippet;
+    }
+
+    @JsonUnwrapped
+    public NoteResponse getNote() {
+        return note;
+    }
+
+    public double getRank() {
+        return rank;
+    }
+
+    // Matching fragments, HTML-escaped, with terms wrapped in <mark></mark>
+    public String getSnippet() {
+        return snippet;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.note;
+
+import com.example.folder.FolderChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-process substring index of note content for databases without pg_trgm, one
+ * {@link UserNoteIndex} per owner. Built lazily on a user's first search, kept current from
+ * committed note and folder writes, and bounded by total postings: cold users are evicted
+ * and simply rebuilt the next time they search.
+ */
+@Component
+public class NoteSearchIndex {
+
+    private static final int MIN_QUERY_LENGTH = 3;
+
+    private final NoteRepository noteRepository;
+    private final SearchProperties props;
+    private final Cache<Long, UserNoteIndex> indexes;
+    // ownerId -> System.nanoTime() of the last committed change, a build that overlapped one is not kept
+    private final Cache<Long, Long> recentChanges = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+
+    public NoteSearchIndex(NoteRepository noteRepository, SearchProperties props) {
+        this.noteRepository = noteRepository;
+        this.props = props;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(props.getEmbeddedIndexMaxPostings())
+                .weigher((Long ownerId, UserNoteIndex index) -> Math.max(1, index.size()))
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+    }
+
+    /**
+     * Ids of the owner's active notes that may contain {@code text}. Empty when the index
+     * cannot narrow the search (disabled, query too short, or too many candidates to bind),
+     * in which case the caller runs the plain query.
+     */
+    public Optional<Set<Long>> candidates(Long ownerId, String text) {
+        if (!props.isEmbeddedIndexEnabled() || text.length() < MIN_QUERY_LENGTH || !matchesLikeLiterally(text)) {
+            return Optional.empty();
+        }
+        Set<Long> candidates = indexFor(ownerId).candidates(text);
+        if (candidates.size() > props.getEmbeddedIndexMaxCandidates()) {
+            return Optional.empty();
+        }
+        return Optional.of(candidates);
+    }
+
+    // The index must narrow exactly what NoteSpecs.contentContains matches. LIKE reads % and _ as
+    // wildcards and a backslash as its escape, and text whose lower case changes length may be
+    // lowered differently by Postgres; the plain query handles those.
+    private static boolean matchesLikeLiterally(String text) {
+        return text.indexOf('%') < 0 && text.indexOf('_') < 0 && text.indexOf('\\') < 0
+                && text.toLowerCase(Locale.ROOT).length() == text.length();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (!props.isEmbeddedIndexEnabled()) {
+            return;
+        }
+        recentChanges.put(event.ownerId(), System.nanoTime());
+        // compute re-weighs the entry, so eviction sees the new size
+        indexes.asMap().computeIfPresent(event.ownerId(), (ownerId, index) -> {
+            if (event.content() == null) {
+                index.remove(event.noteId());
+            } else {
+                index.put(event.noteId(), event.content());
+            }
+            return index;
+        });
+    }
+
+    // A folder delete or restore touches all of its notes, cheaper to rebuild on next search
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFolderChanged(FolderChangedEvent event) {
+        if (!props.isEmbeddedIndexEnabled()) {
+            return;
+        }
+        recentChanges.put(event.ownerId(), System.nanoTime());
+        indexes.invalidate(event.ownerId());
+    }
+
+    private UserNoteIndex indexFor(Long ownerId) {
+        UserNoteIndex index = indexes.getIfPresent(ownerId);
+        if (index != null) {
+            return index;
+        }
+
+        long start = System.nanoTime();
+        UserNoteIndex built = new UserNoteIndex();
+        for (IndexedNote note : noteRepository.findIndexableByOwner(ownerId)) {
+            built.put(note.id(), note.content());
+        }
+
+        UserNoteIndex existing = indexes.asMap().putIfAbsent(ownerId, built);
+        if (existing != null) {
+            return existing;
+        }
+        // Checked only after publishing: onNoteChanged records the change before updating a cached index,
+        // so a change it could not apply to ours (not cached yet) is always seen here. Such a build may be
+        // missing it, use it once and rebuild next time.
+        if (changedSince(ownerId, start)) {
+            indexes.asMap().remove(ownerId, built);
+        }
+        return built;
+    }
+
+    private boolean changedSince(Long ownerId, long start) {
+        Long changedAt = recentChanges.getIfPresent(ownerId);
+        return changedAt != null && changedAt - start >= 0;
+    }
+}
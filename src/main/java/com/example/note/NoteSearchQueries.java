@@ -0,0 +1,171 @@
+package com.example.note;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Search queries that Criteria cannot express, run as native SQL through the EntityManager
+ * so pending writes are flushed first. Optional filters are only appended when present,
+ * which keeps every bound parameter non-null.
+ */
+@Repository
+public class NoteSearchQueries {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteSearchQueries.class);
+    private static final String HEADLINE_OPTIONS =
+            "StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=20, MinWords=5";
+    // Headlines are cut from an HTML-escaped copy, so <mark> is the only markup a snippet can hold.
+    // The parser reads the entities as single tokens, words and their positions are unchanged.
+    private static final String ESCAPED_CONTENT = """
+            replace(replace(replace(replace(replace(coalesce(n.content, ''),
+                '&', '&amp;'), '<', '&lt;'), '>', '&gt;'), '"', '&quot;'), '''', '&#39;')""";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final SearchProperties props;
+    // null until the first fuzzy search checks whether V4 could install pg_trgm
+    private volatile Boolean trigramAvailable;
+
+    public NoteSearchQueries(SearchProperties props) {
+        this.props = props;
+    }
+
+    // Ranked matches against note.content_tsv (GIN indexed), best match first
+    public Page<RankedHit> fullText(Long ownerId, String text, Long folderId, String tagName, Pageable pageable) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("ownerId", ownerId);
+        params.put("text", text);
+
+        StringBuilder from = new StringBuilder("""
+                FROM note n
+                JOIN folders f ON f.id = n.folder_id
+                CROSS JOIN websearch_to_tsquery('english', :text) q
+                WHERE n.owner_id = :ownerId
+                  AND n.deleted_at IS NULL
+                  AND f.deleted_at IS NULL
+                  AND n.content_tsv @@ q
+                """);
+        appendFilters(from, params, folderId, tagName);
+
+        String select = """
+                SELECT n.id,
+                       ts_rank(n.content_tsv, q),
+                       ts_headline('english', %s, q, '%s')
+                """.formatted(ESCAPED_CONTENT, HEADLINE_OPTIONS);
+        return page(select, from, params, pageable);
+    }
+
+    /**
+     * Substring matches plus near misses, most similar first. Both predicates are served by the
+     * trigram index on lower(content); the similarity cut-off is a transaction-local setting, so
+     * callers must run inside a transaction. Without pg_trgm this degrades to substring only.
+     */
+    public Page<RankedHit> fuzzy(Long ownerId, String text, Long folderId, String tagName, Pageable pageable) {
+        String needle = text.toLowerCase(Locale.ROOT);
+        Map<String, Object> params = new HashMap<>();
+        params.put("ownerId", ownerId);
+        params.put("pattern", "%" + escapeLike(needle) + "%");
+
+        StringBuilder from = new StringBuilder("""
+                FROM note n
+                JOIN folders f ON f.id = n.folder_id
+                WHERE n.owner_id = :ownerId
+                  AND n.deleted_at IS NULL
+                  AND f.deleted_at IS NULL
+                """);
+
+        String select;
+        if (isTrigramAvailable()) {
+            em.createNativeQuery("SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)")
+                    .setParameter("threshold", String.valueOf(props.getFuzzyThreshold()))
+                    .getSingleResult();
+            from.append(" AND (lower(n.content) LIKE :pattern OR :needle <% lower(n.content))");
+            params.put("needle", needle);
+            // exact substrings always rank above misspellings
+            select = """
+                    SELECT n.id,
+                           CASE WHEN lower(n.content) LIKE :pattern THEN 1.0
+                                ELSE word_similarity(:needle, lower(n.content)) END,
+                           NULL
+                    """;
+        } else {
+            from.append(" AND lower(n.content) LIKE :pattern");
+            select = "SELECT n.id, 1.0, NULL";
+        }
+        appendFilters(from, params, folderId, tagName);
+        return page(select, from, params, pageable);
+    }
+
+    private Page<RankedHit> page(String select, StringBuilder from, Map<String, Object> params, Pageable pageable) {
+        Query query = em.createNativeQuery(select + " " + from + " ORDER BY 2 DESC, n.id DESC");
+        params.forEach(query::setParameter);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        List<RankedHit> hits = rows.stream()
+                .map(row -> new RankedHit(
+                        ((Number) row[0]).longValue(),
+                        ((Number) row[1]).doubleValue(),
+                        (String) row[2]))
+                .toList();
+
+        // count only runs when the page is full or not the first one
+        return PageableExecutionUtils.getPage(hits, pageable, () -> {
+            Query count = em.createNativeQuery("SELECT count(*) " + from);
+            params.forEach(count::setParameter);
+            return ((Number) count.getSingleResult()).longValue();
+        });
+    }
+
+    private boolean isTrigramAvailable() {
+        Boolean available = trigramAvailable;
+        if (available == null) {
+            available = (Boolean) em.createNativeQuery("""
+                    SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')
+                       AND to_regclass('idx_note_content_trgm') IS NOT NULL
+                    """).getSingleResult();
+            if (!available) {
+                log.warn("pg_trgm not installed, fuzzy note search falls back to substring matching");
+            }
+            trigramAvailable = available;
+        }
+        return available;
+    }
+
+    private static void appendFilters(StringBuilder sql, Map<String, Object> params, Long folderId, String tagName) {
+        if (folderId != null) {
+            sql.append(" AND n.folder_id = :folderId");
+            params.put("folderId", folderId);
+        }
+        if (tagName != null && !tagName.isBlank()) {
+            sql.append("""
+                     AND EXISTS (SELECT 1 FROM note_tags nt
+                                 JOIN tag t ON t.id = nt.tag_id
+                                 WHERE nt.note_id = n.id AND t.name = :tagName)
+                    """);
+            params.put("tagName", tagName);
+        }
+    }
+
+    // user text is matched literally, not as a LIKE pattern
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
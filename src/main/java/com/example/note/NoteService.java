@@ -2,29 +2,41 @@ package com.example.note;
 
 import com.example.auth.OwnerAction;
 import com.example.auth.OwnerAuthorization;
+import com.example.base.ProjectionQueries;
+import com.example.base.SparseFields;
 import com.example.exceptions.NotFoundException;
+import com.example.exceptions.PreconditionFailedException;
 import com.example.folder.Folder;
 import com.example.folder.FolderRepository;
 import com.example.folder.FolderSpecs;
 import com.example.shared.SharedAction;
 import com.example.shared.SharedLink;
 import com.example.shared.SharedLinkService;
+import com.example.shared.SharedLinkStatsResponse;
 import com.example.tag.Tag;
 import com.example.tag.TagRepository;
-import com.example.user.User;
+import com.example.auth.AuthenticatedUser;
 import com.example.auth.CurrentUser;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -37,13 +49,35 @@ public class NoteService {
     private final SharedLinkService sharedLinkService;
     private final TagRepository tagRepository;
     private final OwnerAuthorization ownedAuth;
+    private final NoteSearchQueries searchQueries;
+    private final NoteSearchIndex searchIndex;
+    private final NoteSummaryQueries summaryQueries;
+    private final ProjectionQueries projectionQueries;
+    private final NoteWriteQueries writeQueries;
+    private final ApplicationEventPublisher events;
     private static final Logger log = LoggerFactory.getLogger(NoteService.class);
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+    // ?fields= names that map to a column; userName and tags are filled in without selecting note columns
+    private static final Map<String, String> NOTE_COLUMNS = Map.of(
+            "id", "id",
+            "content", "content",
+            "folderId", "folder.id",
+            "createdAt", "createdAt",
+            "updatedAt", "updatedAt"
+    );
+    private static final Set<String> NOTE_FIELDS = Set.of(
+            "id", "content", "userName", "folderId", "createdAt", "updatedAt", "tags"
+    );
 
     public NoteService(NoteRepository noteRepository,
                        CurrentUser currentUser,
                        FolderRepository folderRepository,
                        SharedLinkService sharedLinkService,
-                       TagRepository tagRepository, OwnerAuthorization ownedAuth
+                       TagRepository tagRepository, OwnerAuthorization ownedAuth,
+                       NoteSearchQueries searchQueries, NoteSearchIndex searchIndex,
+                       NoteSummaryQueries summaryQueries, ProjectionQueries projectionQueries,
+                       NoteWriteQueries writeQueries, ApplicationEventPublisher events
                        ) {
         this.noteRepository = noteRepository;
         this.currentUser = currentUser;
@@ -51,36 +85,42 @@ public class NoteService {
         this.sharedLinkService = sharedLinkService;
         this.tagRepository = tagRepository;
         this.ownedAuth = ownedAuth;
+        this.searchQueries = searchQueries;
+        this.searchIndex = searchIndex;
+        this.summaryQueries = summaryQueries;
+        this.projectionQueries = projectionQueries;
+        this.writeQueries = writeQueries;
+        this.events = events;
     }
     // Helper Specs
     /* ---------------------------------------------------------------------------------------------------*/
-    private Specification<Note> ownedActive(Long id, User user) {
+    private Specification<Note> ownedActive(Long id, AuthenticatedUser user) {
         return Specification
                 .allOf(NoteSpecs.withId(id))
-                .and(NoteSpecs.belongsTo(user))
+                .and(NoteSpecs.belongsTo(user.id()))
                 .and(NoteSpecs.notDeleted())
                 .and(NoteSpecs.folderNotDeleted());
     }
 
-    private Specification<Note> ownedDeleted(Long id, User user) {
+    private Specification<Note> ownedDeleted(Long id, AuthenticatedUser user) {
         return Specification
                 .allOf(NoteSpecs.withId(id))
-                .and(NoteSpecs.belongsTo(user))
+                .and(NoteSpecs.belongsTo(user.id()))
                 .and(NoteSpecs.folderNotDeleted())
                 .and(NoteSpecs.isDeleted());
 
     }
-    private Specification<Note> ownedActiveInFolder(Long folderId, User user) {
+    private Specification<Note> ownedActiveInFolder(Long folderId, AuthenticatedUser user) {
         return Specification
                 .allOf(NoteSpecs.inFolder(folderId)) //implicit checking for folders
-                .and(NoteSpecs.belongsTo(user))
+                .and(NoteSpecs.belongsTo(user.id()))
                 .and(NoteSpecs.notDeleted())
                 .and(NoteSpecs.folderNotDeleted());
     }
 
-    private Specification<Note> allActive(User user) {
+    private Specification<Note> allActive(AuthenticatedUser user) {
         return Specification
-                .allOf(NoteSpecs.belongsTo(user))
+                .allOf(NoteSpecs.belongsTo(user.id()))
                 .and(NoteSpecs.notDeleted())
                 .and(NoteSpecs.folderNotDeleted());
 
@@ -90,41 +130,77 @@ public class NoteService {
 
     // Business logic
     public NoteResponse create(Long folderId, String content, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
         Specification<Folder> spec = Specification.allOf(FolderSpecs.withId(folderId))
-                .and(FolderSpecs.belongsTo(user))
+                .and(FolderSpecs.belongsTo(user.id()))
                 .and(FolderSpecs.notDeleted());
         Folder folder = folderRepository.findOne(spec)
                 .orElseThrow(() -> new NotFoundException("Folder not found"));
         ownedAuth.authorize(OwnerAction.CREATE);
-        Note note = new Note(content, user, folder);
+        Note note = new Note(content, currentUser.reference(user), folder);
         Instant now = Instant.now();
         note.setCreatedAt(now);
         note.setUpdatedAt(now);
         noteRepository.save(note);
-        return NoteResponse.fromEntity(note);
+        events.publishEvent(new NoteChangedEvent(user.id(), note.getId(), note.getContent()));
+        return NoteResponse.fromEntity(note, user.email());
 
 
     }
 
+    @Transactional
     public NoteResponse getById(Long id, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
 
         Specification<Note> spec = ownedActive(id, user);
         Note note = noteRepository.findOne(spec)
                 .orElseThrow(() -> new NotFoundException("Note not found"));
 
         ownedAuth.authorize(OwnerAction.READ);
-        return NoteResponse.fromEntity(note);
+        return NoteResponse.fromEntity(note, user.email());
 
     }
 
+    // Current version of an owned, active note; enough to answer If-None-Match
+    public long getVersion(Long id, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        Long version = noteRepository.findActiveVersion(id, user.id())
+                .orElseThrow(() -> new NotFoundException("Note not found"));
+        ownedAuth.authorize(OwnerAction.READ);
+        return version;
+    }
+
+    // Many notes in one query, same ownership and soft delete rules as getById
+    @Transactional
+    public BatchGetResponse getByIds(List<Long> ids, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        Set<Long> requested = new LinkedHashSet<>(ids);
+
+        Map<Long, Note> found = noteRepository.findAll(allActive(user).and(NoteSpecs.idIn(requested)))
+                .stream()
+                .collect(Collectors.toMap(Note::getId, Function.identity()));
+        ownedAuth.authorize(OwnerAction.READ);
+
+        List<NoteResponse> notes = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : requested) {
+            Note note = found.get(id);
+            if (note != null) {
+                notes.add(NoteResponse.fromEntity(note, user.email()));
+            } else {
+                notFound.add(id);
+            }
+        }
+        return new BatchGetResponse(notes, notFound);
+    }
+
+    @Transactional
     public List<NoteResponse> getByFolder(Long folderId, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
 
         Specification<Folder> folderSpec = Specification
                 .allOf(FolderSpecs.withId(folderId))
-                .and(FolderSpecs.belongsTo(user))
+                .and(FolderSpecs.belongsTo(user.id()))
                 .and(FolderSpecs.notDeleted());
 
         Folder folder = folderRepository.findOne(folderSpec)
@@ -135,19 +211,20 @@ public class NoteService {
         List<Note> notes = noteRepository.findAll(noteSpec);
         ownedAuth.authorize(OwnerAction.READ);
         return notes.stream()
-                .map(NoteResponse::fromEntity)
+                .map(note -> NoteResponse.fromEntity(note, user.email()))
                 .toList();
     }
 
 
+    @Transactional
     public PageResponse<NoteResponse> getMyFilteredNotes(Pageable pageable, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
         ownedAuth.authorize(OwnerAction.READ);
         Specification<Note> spec = allActive(user);
 
         Page<Note> notes = noteRepository.findAll(spec, pageable);
         ownedAuth.authorize(OwnerAction.READ);
-        var content = notes.map(NoteResponse::fromEntity).toList();
+        var content = notes.map(note -> NoteResponse.fromEntity(note, user.email())).toList();
         return new PageResponse<NoteResponse>(
                 content,
                 notes.getNumber(),
@@ -157,53 +234,51 @@ public class NoteService {
         );
     }
 
-    public NoteResponse update(Long id, String content, Authentication auth) {
-        User user = currentUser.get(auth);
-
-        Specification<Note> spec = ownedActive(id,user);
-
-        Note note = noteRepository.findOne(spec)
-                .orElseThrow(() -> new NotFoundException("Note not found"));
-
+    // One conditional UPDATE ... RETURNING per write; expectedVersion comes from If-Match, null skips the check
+    @Transactional
+    public NoteResponse update(Long id, String content, Long expectedVersion, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
         ownedAuth.authorize(OwnerAction.UPDATE);
 
-        note.setContent(content);
-        note.setUpdatedAt(Instant.now());
-        noteRepository.save(note);
+        NoteRow row = writeQueries.updateContent(id, user.id(), content, expectedVersion, Instant.now())
+                .orElseThrow(() -> notWritten(ownedActive(id, user), expectedVersion));
+        events.publishEvent(new NoteChangedEvent(user.id(), row.id(), row.content()));
 
-        return NoteResponse.fromEntity(note);
+        return NoteResponse.fromRow(row, user.email());
     }
 
-    public void delete(Long id, Authentication auth) {
-
-        User user = currentUser.get(auth);
-
-        Specification<Note> spec = ownedActive(id, user);
-
-        Note note = noteRepository.findOne(spec)
-                .orElseThrow(() -> new NotFoundException("Note not found"));
+    @Transactional
+    public void delete(Long id, Long expectedVersion, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
         ownedAuth.authorize(OwnerAction.DELETE);
-        note.setDeletedAt(Instant.now());
-        noteRepository.save(note);
+
+        NoteRow row = writeQueries.softDelete(id, user.id(), expectedVersion, Instant.now())
+                .orElseThrow(() -> notWritten(ownedActive(id, user), expectedVersion));
+        events.publishEvent(new NoteChangedEvent(user.id(), row.id(), null));
     }
 
-    public void restore(Long id, Authentication auth) {
-        User user = currentUser.get(auth);
+    @Transactional
+    public void restore(Long id, Long expectedVersion, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        ownedAuth.authorize(OwnerAction.UPDATE);
 
-        Specification<Note> spec = ownedDeleted(id, user);
+        NoteRow row = writeQueries.restore(id, user.id(), expectedVersion, Instant.now())
+                .orElseThrow(() -> notWritten(ownedDeleted(id, user), expectedVersion));
+        events.publishEvent(new NoteChangedEvent(user.id(), row.id(), row.content()));
+    }
 
-        Note note = noteRepository.findOne(spec)
-                .orElseThrow(() -> new NotFoundException("Note not found"));
-        ownedAuth.authorize(OwnerAction.UPDATE);
-        note.setDeletedAt(null);
-        note.setUpdatedAt(Instant.now());
-        noteRepository.save(note);
+    // Only runs when the UPDATE matched nothing: the note is there, so the version was stale
+    private RuntimeException notWritten(Specification<Note> spec, Long expectedVersion) {
+        if (expectedVersion != null && noteRepository.exists(spec)) {
+            return new PreconditionFailedException("Note was modified, current version does not match If-Match");
+        }
+        return new NotFoundException("Note not found");
     }
 
 
 
     public String createSharedLink(Long id, Long expiration, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
 
 
         Specification<Note> spec = ownedActive(id, user);
@@ -219,20 +294,37 @@ public class NoteService {
         SharedLink link = sharedLinkService.create(
                 note,
                 Set.of(SharedAction.READ),
-                user,
+                currentUser.reference(user),
                 Instant.now().plusSeconds(expiration) // add configurability later
         );
 
         return link.getToken();
     }
 
+    // Deleted notes included, their links' history is still the owner's to see
+    public List<SharedLinkStatsResponse> getSharedLinkStats(Long id, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+
+        Specification<Note> spec = Specification
+                .allOf(NoteSpecs.withId(id))
+                .and(NoteSpecs.belongsTo(user.id()));
+        if (!noteRepository.exists(spec)) {
+            throw new NotFoundException("Note not found");
+        }
+
+        ownedAuth.authorize(OwnerAction.READ);
+
+        return sharedLinkService.statsForNote(id);
+    }
+
+    @Transactional
     public PageResponse<NoteResponse> getAllShared(Pageable pageable, Authentication auth){
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
         Specification<Note> spec = allActive(user);
         Page<Note> sharedNotes = noteRepository.findAll(spec.and(NoteSpecs.hasSharedLinks()), pageable);
 
         ownedAuth.authorize(OwnerAction.READ);
-        var content = sharedNotes.map(NoteResponse::fromEntity).toList();
+        var content = sharedNotes.map(note -> NoteResponse.fromEntity(note, user.email())).toList();
 
         return new PageResponse<NoteResponse>(
                 content,
@@ -244,6 +336,7 @@ public class NoteService {
     }
 
 
+    @Transactional
     public PageResponse<NoteResponse> searchMyNotes(
             String text,
             Long folderId,
@@ -251,12 +344,41 @@ public class NoteService {
             String tagName,
             Authentication auth
     ) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
+
+        Optional<Specification<Note>> spec = searchSpec(text, folderId, tagName, user);
+        if (spec.isEmpty()) {
+            ownedAuth.authorize(OwnerAction.READ);
+            return emptyPage(pageable);
+        }
 
+        Page<Note> notes = noteRepository.findAll(spec.get(), pageable);
+        ownedAuth.authorize(OwnerAction.READ);
+        var content = notes.map(note -> NoteResponse.fromEntity(note, user.email())).toList();
+
+        return new PageResponse<NoteResponse>(
+                content,
+                notes.getNumber(),
+                notes.getSize(),
+                notes.getTotalElements(),
+                notes.getTotalPages()
+        );
+    }
+
+    // Substring search filters; empty when the embedded index already knows nothing can match
+    private Optional<Specification<Note>> searchSpec(String text, Long folderId, String tagName, AuthenticatedUser user) {
         Specification<Note> spec = allActive(user);
 
         if (text != null && !text.isBlank()) {
             spec = spec.and(NoteSpecs.contentContains(text));
+            // narrow to the ids the embedded index says can match, when it is enabled and selective
+            Optional<Set<Long>> candidates = searchIndex.candidates(user.id(), text);
+            if (candidates.isPresent()) {
+                if (candidates.get().isEmpty()) {
+                    return Optional.empty();
+                }
+                spec = spec.and(NoteSpecs.idIn(candidates.get()));
+            }
         }
 
         if (folderId != null) {
@@ -266,23 +388,314 @@ public class NoteService {
         if (tagName != null && !tagName.isBlank()) {
             spec = spec.and(NoteSpecs.hasTag(tagName));
         }
+        return Optional.of(spec);
+    }
 
-        Page<Note> notes = noteRepository.findAll(spec, pageable);
+    // Keyset paging: newest first on (createdAt, id), no count query, cost independent of depth
+    /* ---------------------------------------------------------------------------------------------------*/
+    @Transactional
+    public CursorPage<NoteResponse> getMyNotesAfter(String cursor, int size, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        ownedAuth.authorize(OwnerAction.READ);
+        return cursorPage(allActive(user), cursor, size, user);
+    }
+
+    @Transactional
+    public CursorPage<NoteResponse> getAllSharedAfter(String cursor, int size, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
         ownedAuth.authorize(OwnerAction.READ);
-        var content = notes.map(NoteResponse::fromEntity).toList();
+        return cursorPage(allActive(user).and(NoteSpecs.hasSharedLinks()), cursor, size, user);
+    }
 
-        return new PageResponse<NoteResponse>(
+    @Transactional
+    public CursorPage<NoteResponse> searchMyNotesAfter(
+            String text,
+            Long folderId,
+            String tagName,
+            String cursor,
+            int size,
+            Authentication auth
+    ) {
+        AuthenticatedUser user = currentUser.get(auth);
+        ownedAuth.authorize(OwnerAction.READ);
+        return searchSpec(text, folderId, tagName, user)
+                .map(spec -> cursorPage(spec, cursor, size, user))
+                .orElseGet(() -> new CursorPage<NoteResponse>(List.of(), cursorPageSize(size), null));
+    }
+
+    private CursorPage<NoteResponse> cursorPage(Specification<Note> spec, String cursor, int size, AuthenticatedUser user) {
+        int limit = cursorPageSize(size);
+
+        // one extra row tells whether another page exists
+        List<Note> notes = noteRepository.findBy(afterCursor(spec, cursor),
+                q -> q.sortBy(KEYSET_ORDER).limit(limit + 1).all());
+        boolean hasMore = notes.size() > limit;
+        if (hasMore) {
+            notes = notes.subList(0, limit);
+        }
+
+        var content = notes.stream()
+                .map(note -> NoteResponse.fromEntity(note, user.email()))
+                .toList();
+        String next = hasMore ? NoteCursor.after(notes.get(limit - 1)).encode() : null;
+        return new CursorPage<NoteResponse>(content, limit, next);
+    }
+
+    // Keyset page of sparse rows; createdAt is selected either way, the next cursor is built from it
+    private CursorPage<Map<String, Object>> cursorFieldsPage(Specification<Note> spec, Set<String> selected,
+                                                             String cursor, int size, AuthenticatedUser user) {
+        int limit = cursorPageSize(size);
+        Map<String, String> columns = noteColumns(selected);
+        columns.put("createdAt", "createdAt");
+
+        List<Map<String, Object>> rows = projectionQueries.findAll(
+                Note.class, afterCursor(spec, cursor), columns, KEYSET_ORDER, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        var content = rows.stream().map(noteFields(rows, selected, user)).toList();
+        String next = null;
+        if (hasMore) {
+            Map<String, Object> last = rows.get(limit - 1);
+            next = new NoteCursor((Instant) last.get("createdAt"), (Long) last.get("id")).encode();
+        }
+        return new CursorPage<Map<String, Object>>(content, limit, next);
+    }
+
+    private static Specification<Note> afterCursor(Specification<Note> spec, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return spec;
+        }
+        return spec.and(NoteSpecs.after(NoteCursor.decode(cursor)));
+    }
+
+    private static int cursorPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+    }
+    /* ---------------------------------------------------------------------------------------------------*/
+
+    // Summary view: id, folder, timestamps, tags and a preview, the note body is only read by getById
+    /* ---------------------------------------------------------------------------------------------------*/
+    @Transactional
+    public PageResponse<NoteSummary> getMySummaries(Pageable pageable, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        ownedAuth.authorize(OwnerAction.READ);
+        return toPageResponse(summaryQueries.findAll(allActive(user), pageable));
+    }
+
+    @Transactional
+    public List<NoteSummary> getSummariesByFolder(Long folderId, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        requireActiveFolder(folderId, user);
+
+        ownedAuth.authorize(OwnerAction.READ);
+        return summaryQueries.findAll(ownedActiveInFolder(folderId, user));
+    }
+
+    private void requireActiveFolder(Long folderId, AuthenticatedUser user) {
+        Specification<Folder> folderSpec = Specification
+                .allOf(FolderSpecs.withId(folderId))
+                .and(FolderSpecs.belongsTo(user.id()))
+                .and(FolderSpecs.notDeleted());
+        if (!folderRepository.exists(folderSpec)) {
+            throw new NotFoundException("Not your folder");
+        }
+    }
+
+    @Transactional
+    public PageResponse<NoteSummary> searchMySummaries(
+            String text,
+            Long folderId,
+            String tagName,
+            Pageable pageable,
+            Authentication auth
+    ) {
+        AuthenticatedUser user = currentUser.get(auth);
+        ownedAuth.authorize(OwnerAction.READ);
+        return searchSpec(text, folderId, tagName, user)
+                .map(spec -> toPageResponse(summaryQueries.findAll(spec, pageable)))
+                .orElseGet(() -> emptyPage(pageable));
+    }
+
+    private static <T> PageResponse<T> toPageResponse(Page<T> page) {
+        return new PageResponse<T>(
+                page.getContent(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages()
+        );
+    }
+    /* ---------------------------------------------------------------------------------------------------*/
+
+    // Sparse fieldset: selects only the requested columns and serializes only the requested fields
+    @Transactional
+    public PageResponse<Map<String, Object>> getMyNoteFields(String fields, Pageable pageable, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        Set<String> selected = SparseFields.parse(fields, NOTE_FIELDS);
+        ownedAuth.authorize(OwnerAction.READ);
+
+        Page<Map<String, Object>> rows = projectionQueries.findAll(
+                Note.class, allActive(user), noteColumns(selected), pageable);
+        return toPageResponse(rows.map(noteFields(rows.getContent(), selected, user)));
+    }
+
+    @Transactional
+    public PageResponse<Map<String, Object>> searchMyNoteFields(
+            String text,
+            Long folderId,
+            String tagName,
+            String fields,
+            Pageable pageable,
+            Authentication auth
+    ) {
+        AuthenticatedUser user = currentUser.get(auth);
+        Set<String> selected = SparseFields.parse(fields, NOTE_FIELDS);
+        ownedAuth.authorize(OwnerAction.READ);
+        return searchSpec(text, folderId, tagName, user)
+                .map(spec -> {
+                    Page<Map<String, Object>> rows = projectionQueries.findAll(
+                            Note.class, spec, noteColumns(selected), pageable);
+                    return toPageResponse(rows.map(noteFields(rows.getContent(), selected, user)));
+                })
+                .orElseGet(() -> emptyPage(pageable));
+    }
+
+    @Transactional
+    public CursorPage<Map<String, Object>> getMyNoteFieldsAfter(String fields, String cursor, int size,
+                                                                Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        Set<String> selected = SparseFields.parse(fields, NOTE_FIELDS);
+        ownedAuth.authorize(OwnerAction.READ);
+        return cursorFieldsPage(allActive(user), selected, cursor, size, user);
+    }
+
+    @Transactional
+    public CursorPage<Map<String, Object>> searchMyNoteFieldsAfter(
+            String text,
+            Long folderId,
+            String tagName,
+            String fields,
+            String cursor,
+            int size,
+            Authentication auth
+    ) {
+        AuthenticatedUser user = currentUser.get(auth);
+        Set<String> selected = SparseFields.parse(fields, NOTE_FIELDS);
+        ownedAuth.authorize(OwnerAction.READ);
+        return searchSpec(text, folderId, tagName, user)
+                .map(spec -> cursorFieldsPage(spec, selected, cursor, size, user))
+                .orElseGet(() -> new CursorPage<Map<String, Object>>(List.of(), cursorPageSize(size), null));
+    }
+
+    @Transactional
+    public List<Map<String, Object>> getNoteFieldsByFolder(Long folderId, String fields, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        Set<String> selected = SparseFields.parse(fields, NOTE_FIELDS);
+        requireActiveFolder(folderId, user);
+        ownedAuth.authorize(OwnerAction.READ);
+
+        List<Map<String, Object>> rows = projectionQueries.findAll(
+                Note.class, ownedActiveInFolder(folderId, user), noteColumns(selected));
+        return rows.stream().map(noteFields(rows, selected, user)).toList();
+    }
+
+    // id is always selected, tags are looked up by it
+    private static Map<String, String> noteColumns(Set<String> selected) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "id");
+        selected.stream()
+                .filter(NOTE_COLUMNS::containsKey)
+                .forEach(field -> columns.put(field, NOTE_COLUMNS.get(field)));
+        return columns;
+    }
+
+    // Keeps only the requested fields of each row; tags for all rows come from one query
+    private Function<Map<String, Object>, Map<String, Object>> noteFields(
+            List<Map<String, Object>> rows, Set<String> selected, AuthenticatedUser user) {
+        Map<Long, Set<String>> tags = selected.contains("tags") && !rows.isEmpty()
+                ? noteRepository.findTagNamesByNote(rows.stream().map(row -> (Long) row.get("id")).toList())
+                : Map.of();
+
+        return row -> {
+            Map<String, Object> out = new LinkedHashMap<>();
+            for (String field : selected) {
+                switch (field) {
+                    case "userName" -> out.put(field, user.email());
+                    case "tags" -> out.put(field, tags.getOrDefault((Long) row.get("id"), Set.of()));
+                    default -> out.put(field, row.get(field));
+                }
+            }
+            return out;
+        };
+    }
+
+    // Ranked full-text search, ignores the pageable's sort since results are ordered by relevance
+    @Transactional
+    public PageResponse<NoteSearchHit> searchMyNotesFullText(
+            String text,
+            Long folderId,
+            Pageable pageable,
+            String tagName,
+            Authentication auth
+    ) {
+        AuthenticatedUser user = currentUser.get(auth);
+        ownedAuth.authorize(OwnerAction.READ);
+        if (text == null || text.isBlank()) {
+            return emptyPage(pageable);
+        }
+        return toSearchHits(searchQueries.fullText(user.id(), text, folderId, tagName, pageable), user);
+    }
+
+    // Substring search that tolerates typos, most similar first
+    @Transactional
+    public PageResponse<NoteSearchHit> searchMyNotesFuzzy(
+            String text,
+            Long folderId,
+            Pageable pageable,
+            String tagName,
+            Authentication auth
+    ) {
+        AuthenticatedUser user = currentUser.get(auth);
+        ownedAuth.authorize(OwnerAction.READ);
+        if (text == null || text.isBlank()) {
+            return emptyPage(pageable);
+        }
+        return toSearchHits(searchQueries.fuzzy(user.id(), text, folderId, tagName, pageable), user);
+    }
+
+    private <T> PageResponse<T> emptyPage(Pageable pageable) {
+        return new PageResponse<T>(List.of(), pageable.getPageNumber(), pageable.getPageSize(), 0, 0);
+    }
+
+    // Loads the page of notes by id and keeps the ranked order
+    private PageResponse<NoteSearchHit> toSearchHits(Page<RankedHit> hits, AuthenticatedUser user) {
+        Map<Long, Note> notes = noteRepository.findAllById(hits.map(RankedHit::id).toList())
+                .stream()
+                .collect(Collectors.toMap(Note::getId, Function.identity()));
+
+        var content = hits.stream()
+                .filter(hit -> notes.containsKey(hit.id()))
+                .map(hit -> new NoteSearchHit(
+                        NoteResponse.fromEntity(notes.get(hit.id()), user.email()),
+                        hit.rank(),
+                        hit.snippet()))
+                .toList();
+
+        return new PageResponse<NoteSearchHit>(
                 content,
-                notes.getNumber(),
-                notes.getSize(),
-                notes.getTotalElements(),
-                notes.getTotalPages()
+                hits.getNumber(),
+                hits.getSize(),
+                hits.getTotalElements(),
+                hits.getTotalPages()
         );
     }
 
     @Transactional
     public NoteResponse addTags(Long noteId, Set<String> names, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
 
         Specification<Note> spec = ownedActive(noteId, user);
         Note note = noteRepository.findOne(spec)
@@ -299,13 +712,14 @@ public class NoteService {
         note.getTags().addAll(tagSet);
         note.setUpdatedAt(Instant.now());
         noteRepository.save(note);
+        events.publishEvent(new NoteChangedEvent(user.id(), note.getId(), note.getContent()));
 
-        return NoteResponse.fromEntity(note);
+        return NoteResponse.fromEntity(note, user.email());
     }
 
     @Transactional
     public NoteResponse removeTag(Long noteId, String name, Authentication auth) {
-        User user = currentUser.get(auth);
+        AuthenticatedUser user = currentUser.get(auth);
 
         Specification<Note> spec = ownedActive(noteId, user);
         Note note = noteRepository.findOne(spec)
@@ -315,8 +729,9 @@ public class NoteService {
         tagRepository.findByName(name).ifPresent(t -> note.getTags().remove(t));
         note.setUpdatedAt(Instant.now());
         noteRepository.save(note);
+        events.publishEvent(new NoteChangedEvent(user.id(), note.getId(), note.getContent()));
 
-        return NoteResponse.fromEntity(note);
+        return NoteResponse.fromEntity(note, user.email());
     }
 
 
@@ -2,23 +2,42 @@ package com.example.note;
 
 import com.example.shared.SharedLink;
 import com.example.tag.Tag;
-import com.example.user.User;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
+import java.util.Locale;
+
 public class NoteSpecs {
     // QLA specs
-    public static Specification<Note> belongsTo(User user) {
-        return (root, query, cb) -> cb.equal(root.get("owner"), user);
+    // Compares the owner_id column directly, no users join or entity needed
+    public static Specification<Note> belongsTo(Long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("owner").get("id"), ownerId);
     }
 
     public static Specification<Note> withId(Long id) {
         return (root, query, cb) -> cb.equal(root.get("id"), id);
     }
 
+    // Keyset condition for (createdAt DESC, id DESC): strictly after the cursor row.
+    // The leading <= is a plain range the (owner_id, created_at, id) index can seek on.
+    public static Specification<Note> after(NoteCursor cursor) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("createdAt"), cursor.createdAt()),
+                cb.or(
+                        cb.lessThan(root.get("createdAt"), cursor.createdAt()),
+                        cb.lessThan(root.get("id"), cursor.id())
+                )
+        );
+    }
+
+    public static Specification<Note> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
 
     // Search specs
     public static Specification<Note> inFolder(Long folderId) {
@@ -28,7 +47,7 @@ public class NoteSpecs {
 
     public static Specification<Note> contentContains(String text) {
         return (root, query, cb) ->
-                cb.like(cb.lower(root.get("content")), "%" + text.toLowerCase() + "%");
+                cb.like(cb.lower(root.get("content")), "%" + text.toLowerCase(Locale.ROOT) + "%");
     }
 
     public static Specification<Note> hasTag(String name) {
@@ -0,0 +1,50 @@
+package com.example.note;
+
+import java.time.Instant;
+import java.util.Set;
+
+// List row without the note body; preview is cut in SQL so full content never leaves the database
+public class NoteSummary {
+
+    private Long id;
+    private Long folderId;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private String preview;
+    private Set<String> tags;
+
+    public NoteSummary() {}
+
+    public NoteSummary(Long id, Long folderId, Instant createdAt, Instant updatedAt, String preview, Set<String> tags) {
+        this.id = id;
+        this.folderId = folderId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.preview = preview;
+        this.tags = tags;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getFolderId() {
+        return folderId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getPreview() {
+        return preview;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.note;
+
+import com.example.base.ProjectionQueries;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Summary projections of notes. Takes the same Specifications as NoteRepository and selects the
+ * summary columns through ProjectionQueries, the preview being one computed column; then the tag
+ * names of the whole page in one more query.
+ */
+@Repository
+public class NoteSummaryQueries {
+
+    static final int PREVIEW_LENGTH = 120;
+
+    private static final Map<String, String> COLUMNS = Map.of(
+            "id", "id",
+            "folderId", "folder.id",
+            "createdAt", "createdAt",
+            "updatedAt", "updatedAt"
+    );
+    private static final Map<String, ProjectionQueries.Computed<Note>> PREVIEW = Map.of(
+            "preview", (root, cb) -> cb.substring(root.<String>get("content"), 1, PREVIEW_LENGTH)
+    );
+
+    private final ProjectionQueries projectionQueries;
+    private final NoteRepository noteRepository;
+
+    public NoteSummaryQueries(ProjectionQueries projectionQueries, NoteRepository noteRepository) {
+        this.projectionQueries = projectionQueries;
+        this.noteRepository = noteRepository;
+    }
+
+    public Page<NoteSummary> findAll(Specification<Note> spec, Pageable pageable) {
+        Page<Map<String, Object>> rows = projectionQueries.findAll(Note.class, spec, COLUMNS, PREVIEW, pageable);
+        return rows.map(toSummary(rows.getContent()));
+    }
+
+    public List<NoteSummary> findAll(Specification<Note> spec) {
+        List<Map<String, Object>> rows = projectionQueries.findAll(Note.class, spec, COLUMNS, PREVIEW);
+        return rows.stream().map(toSummary(rows)).toList();
+    }
+
+    private Function<Map<String, Object>, NoteSummary> toSummary(List<Map<String, Object>> rows) {
+        Map<Long, Set<String>> tags = rows.isEmpty()
+                ? Map.of()
+                : noteRepository.findTagNamesByNote(rows.stream().map(row -> (Long) row.get("id")).toList());
+
+        return row -> new NoteSummary(
+                (Long) row.get("id"),
+                (Long) row.get("folderId"),
+                (Instant) row.get("createdAt"),
+                (Instant) row.get("updatedAt"),
+                (String) row.get("preview"),
+                tags.getOrDefault((Long) row.get("id"), Set.of()));
+    }
+}
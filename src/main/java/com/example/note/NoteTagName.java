@@ -0,0 +1,4 @@
+package com.example.note;
+
+public record NoteTagName(Long noteId, String name) {
+}
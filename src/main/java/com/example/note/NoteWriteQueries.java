@@ -0,0 +1,114 @@
+package com.example.note;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Single-statement writes for one owned note: ownership, soft delete state, the folder check and
+ * the optional expected version all sit in the WHERE clause, and RETURNING hands back the new row.
+ * An empty result means nothing matched; telling a stale version from a missing note is left to
+ * the caller, so only failures pay for a second query. Must run inside a transaction.
+ */
+@Repository
+public class NoteWriteQueries {
+
+    private static final String RETURNING = """
+             RETURNING n.id, n.content, n.folder_id AS folder_id, n.created_at, n.updated_at, n.version,
+                       (SELECT array_agg(t.name)
+                        FROM note_tags nt
+                        JOIN tag t ON t.id = nt.tag_id
+                        WHERE nt.note_id = n.id) AS tags
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public Optional<NoteRow> updateContent(Long id, Long ownerId, String content, Long expectedVersion, Instant now) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("content", content);
+        params.put("now", now);
+        return write("content = :content, updated_at = :now", "n.deleted_at IS NULL",
+                id, ownerId, expectedVersion, params);
+    }
+
+    public Optional<NoteRow> softDelete(Long id, Long ownerId, Long expectedVersion, Instant now) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("now", now);
+        return write("deleted_at = :now", "n.deleted_at IS NULL",
+                id, ownerId, expectedVersion, params);
+    }
+
+    // Same as before: cascade_deleted_at is left for the folder restore to clear
+    public Optional<NoteRow> restore(Long id, Long ownerId, Long expectedVersion, Instant now) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("now", now);
+        return write("deleted_at = NULL, updated_at = :now", "n.deleted_at IS NOT NULL",
+                id, ownerId, expectedVersion, params);
+    }
+
+    private Optional<NoteRow> write(String set, String state, Long id, Long ownerId, Long expectedVersion,
+                                    Map<String, Object> params) {
+        StringBuilder sql = new StringBuilder("UPDATE note n SET " + set + ", version = n.version + 1")
+                .append("""
+                         FROM folders f
+                        WHERE n.id = :id
+                          AND n.owner_id = :ownerId
+                          AND f.id = n.folder_id
+                          AND f.deleted_at IS NULL
+                        """)
+                .append(" AND ").append(state);
+        params.put("id", id);
+        params.put("ownerId", ownerId);
+        if (expectedVersion != null) {
+            sql.append(" AND n.version = :expectedVersion");
+            params.put("expectedVersion", expectedVersion);
+        }
+        sql.append(RETURNING);
+
+        // native statements flush pending changes first, so the WHERE clause sees them
+        NativeQuery<?> query = em.createNativeQuery(sql.toString())
+                .unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("content", String.class)
+                .addScalar("folder_id", Long.class)
+                .addScalar("created_at", Instant.class)
+                .addScalar("updated_at", Instant.class)
+                .addScalar("version", Long.class)
+                .addScalar("tags", String[].class);
+        params.forEach(query::setParameter);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = (List<Object[]>) query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        evict(id);
+
+        Set<String> tags = row[6] == null ? Set.of() : new HashSet<>(Arrays.asList((String[]) row[6]));
+        return Optional.of(new NoteRow(
+                (Long) row[0],
+                (String) row[1],
+                (Long) row[2],
+                (Instant) row[3],
+                (Instant) row[4],
+                (Long) row[5],
+                tags));
+    }
+
+    // A Note already loaded in this persistence context would now be stale; getReference never queries
+    private void evict(Long id) {
+        em.detach(em.getReference(Note.class, id));
+    }
+}
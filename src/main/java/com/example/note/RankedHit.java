@@ -0,0 +1,8 @@
+package com.example.note;
+
+// One row of a ranked search: note id, relevance score and an optional highlighted snippet
+public record RankedHit(
+        Long id,
+        double rank,
+        String snippet
+) {}
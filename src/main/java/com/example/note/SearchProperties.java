@@ -0,0 +1,47 @@
+package com.example.note;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "search")
+public class SearchProperties {
+    // pg_trgm word similarity (0..1) a note needs to match a misspelled query in fuzzy mode
+    private double fuzzyThreshold = 0.4;
+    // In-process index for substring search, for databases where pg_trgm cannot be installed
+    private boolean embeddedIndexEnabled = false;
+    // Total trigram postings kept across all users, roughly 60 bytes each
+    private long embeddedIndexMaxPostings = 2_000_000;
+    // Above this the index is not selective enough, and the id list too long to bind
+    private int embeddedIndexMaxCandidates = 5_000;
+
+    public double getFuzzyThreshold() {
+        return fuzzyThreshold;
+    }
+
+    public void setFuzzyThreshold(double fuzzyThreshold) {
+        this.fuzzyThreshold = fuzzyThreshold;
+    }
+
+    public boolean isEmbeddedIndexEnabled() {
+        return embeddedIndexEnabled;
+    }
+
+    public void setEmbeddedIndexEnabled(boolean embeddedIndexEnabled) {
+        this.embeddedIndexEnabled = embeddedIndexEnabled;
+    }
+
+    public long getEmbeddedIndexMaxPostings() {
+        return embeddedIndexMaxPostings;
+    }
+
+    public void setEmbeddedIndexMaxPostings(long embeddedIndexMaxPostings) {
+        this.embeddedIndexMaxPostings = embeddedIndexMaxPostings;
+    }
+
+    public int getEmbeddedIndexMaxCandidates() {
+        return embeddedIndexMaxCandidates;
+    }
+
+    public void setEmbeddedIndexMaxCandidates(int embeddedIndexMaxCandidates) {
+        this.embeddedIndexMaxCandidates = embeddedIndexMaxCandidates;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.note;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram inverted index over one user's active notes. Every substring of three or more
+ * characters shares all of its trigrams with the note, so intersecting the query's postings
+ * gives a superset of the substring matches; callers confirm them against the database.
+ */
+class UserNoteIndex {
+
+    private final Map<Long, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, long[]> trigramsByNote = new HashMap<>();
+    private int size = 0;
+
+    synchronized void put(Long noteId, String content) {
+        remove(noteId);
+        long[] trigrams = contentTrigrams(content);
+        for (long trigram : trigrams) {
+            postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(noteId);
+        }
+        trigramsByNote.put(noteId, trigrams);
+        size += trigrams.length;
+    }
+
+    synchronized void remove(Long noteId) {
+        long[] trigrams = trigramsByNote.remove(noteId);
+        if (trigrams == null) {
+            return;
+        }
+        for (long trigram : trigrams) {
+            Set<Long> notes = postings.get(trigram);
+            notes.remove(noteId);
+            if (notes.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+        size -= trigrams.length;
+    }
+
+    // Note ids that contain every trigram of the query, the query must be at least 3 chars
+    synchronized Set<Long> candidates(String query) {
+        Set<Long> result = null;
+        for (long trigram : trigrams(query)) {
+            Set<Long> notes = postings.get(trigram);
+            if (notes == null) {
+                return Set.of();
+            }
+            if (result == null) {
+                result = new HashSet<>(notes);
+            } else {
+                result.retainAll(notes);
+            }
+            if (result.isEmpty()) {
+                return Set.of();
+            }
+        }
+        return result == null ? Set.of() : result;
+    }
+
+    // Number of postings held, used as the cache weight
+    synchronized int size() {
+        return size;
+    }
+
+    // Distinct lower-cased trigrams packed into a long, three 16-bit chars each
+    static long[] trigrams(String text) {
+        if (text == null) {
+            return new long[0];
+        }
+        Set<Long> distinct = new HashSet<>();
+        addTrigrams(text.toLowerCase(Locale.ROOT), distinct);
+        return toArray(distinct);
+    }
+
+    // Where full lower-casing changes the length (e.g. İ), Postgres lower() may map char by char
+    // instead, so the note is indexed under both forms: extra candidates are fine, missing ones are not
+    private static long[] contentTrigrams(String content) {
+        if (content == null) {
+            return new long[0];
+        }
+        Set<Long> distinct = new HashSet<>();
+        String lower = content.toLowerCase(Locale.ROOT);
+        addTrigrams(lower, distinct);
+        if (lower.length() != content.length()) {
+            char[] chars = content.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = Character.toLowerCase(chars[i]);
+            }
+            addTrigrams(new String(chars), distinct);
+        }
+        return toArray(distinct);
+    }
+
+    private static void addTrigrams(String lower, Set<Long> distinct) {
+        for (int i = 0; i + 3 <= lower.length(); i++) {
+            distinct.add(((long) lower.charAt(i) << 32)
+                    | ((long) lower.charAt(i + 1) << 16)
+                    | lower.charAt(i + 2));
+        }
+    }
+
+    private static long[] toArray(Set<Long> distinct) {
+        return distinct.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -13,14 +13,26 @@ public class RevokedToken {
 
     private Instant revokedAt;
 
+    // exp of the revoked JWT, the row is useless after this
+    private Instant expiresAt;
+
     protected RevokedToken() {}
 
-    public RevokedToken(String jti, Instant revokedAt) {
+    public RevokedToken(String jti, Instant revokedAt, Instant expiresAt) {
         this.jti = jti;
         this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
     }
 
     public String getJti() {
         return jti;
     }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
 }
@@ -0,0 +1,106 @@
+package com.example.revoked;
+
+import com.example.security.JwtProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local index of revoked token ids sitting in front of {@link RevokedTokenRepository}.
+ * Holds 64-bit fingerprints only: a hit is confirmed against the database, and a miss is taken
+ * as "not revoked", so almost every request skips the query. A logout is exact on the node that
+ * handled it; other nodes only learn of it on their next refresh, so there the revoked token
+ * keeps working for up to 15 seconds. Entries are dropped once the revoked token has expired,
+ * so the index only tracks live tokens.
+ */
+@Component
+public class RevokedTokenIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokenIndex.class);
+    // re-read a little behind the watermark so rows committed late are not missed
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenRepository repository;
+    private final Duration tokenLifetime;
+    // fingerprint -> epoch millis after which the revoked token can no longer validate
+    private final Map<Long, Long> fingerprints = new ConcurrentHashMap<>();
+
+    // Until the first load completes every lookup falls back to the database
+    private volatile boolean loaded = false;
+    private volatile Instant watermark = Instant.EPOCH;
+
+    public RevokedTokenIndex(RevokedTokenRepository repository, JwtProperties jwtProperties) {
+        this.repository = repository;
+        this.tokenLifetime = Duration.ofMillis(jwtProperties.getExpirationMs());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Instant start = Instant.now();
+        try {
+            List<RevokedToken> live = repository.findLive(start, start.minus(tokenLifetime));
+            live.forEach(this::add);
+            watermark = start;
+            loaded = true;
+            log.info("Revoked token index loaded: entries={}", live.size());
+        } catch (DataAccessException ex) {
+            log.warn("Revoked token index not loaded, using database lookups: error={}", ex.getMessage());
+        }
+    }
+
+    // Picks up logouts handled by other nodes and forgets tokens that have expired; the interval
+    // is how long another node's logout can go unseen here
+    @Scheduled(fixedDelay = 15_000)
+    public void refresh() {
+        if (!loaded) {
+            return;
+        }
+        Instant start = Instant.now();
+        try {
+            repository.findRevokedAfter(watermark.minus(REFRESH_OVERLAP))
+                    .forEach(this::add);
+            watermark = start;
+        } catch (DataAccessException ex) {
+            log.warn("Revoked token index refresh failed: error={}", ex.getMessage());
+        }
+        long now = start.toEpochMilli();
+        fingerprints.values().removeIf(expiresAt -> expiresAt < now);
+    }
+
+    public void add(RevokedToken token) {
+        Instant expiresAt = token.getExpiresAt();
+        if (expiresAt == null) {
+            Instant revokedAt = token.getRevokedAt() != null ? token.getRevokedAt() : Instant.now();
+            expiresAt = revokedAt.plus(tokenLifetime);
+        }
+        fingerprints.put(fingerprint(token.getJti()), expiresAt.toEpochMilli());
+    }
+
+    public boolean isRevoked(String jti) {
+        if (loaded && !fingerprints.containsKey(fingerprint(jti))) {
+            return false;
+        }
+        // possible hit (or index not ready yet), the database decides
+        return repository.existsByJti(jti);
+    }
+
+    // 64-bit FNV-1a, collisions only cost an extra lookup
+    private static long fingerprint(String jti) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < jti.length(); i++) {
+            hash ^= jti.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -1,9 +1,44 @@
 package com.example.revoked;
 
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
 
 public interface RevokedTokenRepository
         extends JpaRepository<RevokedToken, String> {
 
     boolean existsByJti(String jti);
+
+    // Rows whose token could still validate; legacy rows have no expires_at
+    @Query("""
+            select r from RevokedToken r
+            where r.expiresAt > :now
+               or (r.expiresAt is null and r.revokedAt > :legacyCutoff)
+            """)
+    List<RevokedToken> findLive(@Param("now") Instant now,
+                                @Param("legacyCutoff") Instant legacyCutoff);
+
+    @Query("select r from RevokedToken r where r.revokedAt > :since")
+    List<RevokedToken> findRevokedAfter(@Param("since") Instant since);
+
+    // One chunk per call/transaction so the purge never holds long locks
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM revoked_token
+            WHERE jti IN (
+                SELECT jti FROM revoked_token
+                WHERE expires_at < :now
+                   OR (expires_at IS NULL AND revoked_at < :legacyCutoff)
+                LIMIT :batchSize
+            )
+            """, nativeQuery = true)
+    int purgeExpired(@Param("now") Instant now,
+                     @Param("legacyCutoff") Instant legacyCutoff,
+                     @Param("batchSize") int batchSize);
 }
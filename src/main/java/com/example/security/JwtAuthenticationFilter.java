@@ -1,6 +1,6 @@
 package com.example.security;
 
-import com.example.revoked.RevokedTokenRepository;
+import com.example.revoked.RevokedTokenIndex;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,6 +12,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Collections;
 
 @Component
@@ -19,13 +20,13 @@ public class JwtAuthenticationFilter implements Filter {
 
     private final JwtUtil jwtUtil;
     private final JwtAuthenticationEntryPoint entryPoint;
-    private final RevokedTokenRepository revokedTokenRepository;
+    private final RevokedTokenIndex revokedTokenIndex;
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, JwtAuthenticationEntryPoint entryPoint, RevokedTokenRepository revokedTokenRepository) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, JwtAuthenticationEntryPoint entryPoint, RevokedTokenIndex revokedTokenIndex) {
         this.jwtUtil = jwtUtil;
         this.entryPoint = entryPoint;
-        this.revokedTokenRepository = revokedTokenRepository;
+        this.revokedTokenIndex = revokedTokenIndex;
     }
 
     @Override
@@ -45,15 +46,17 @@ public class JwtAuthenticationFilter implements Filter {
                String email = claims.getSubject();
                String jti = claims.getId();
 
-               if (revokedTokenRepository.existsByJti(jti)) {
+               if (revokedTokenIndex.isRevoked(jti)) {
                    log.warn("Attempt to use revoked token: jti={} email={} ip={}",
                            jti, email, http.getRemoteAddr());
                    throw new BadCredentialsException("Token revoked");
                }
 
+               // JwtUtil accepts signed tokens without exp, logout then falls back to the configured lifetime
+               Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : null;
                var auth = new UsernamePasswordAuthenticationToken(
                        email,          // principal
-                       jti,            // credentials (token identity)
+                       new TokenCredentials(jti, expiresAt), // credentials (token identity)
                        Collections.emptyList()
 
                );
@@ -1,22 +1,41 @@
 package com.example.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
     private final JwtProperties props;
     private final Key key;
+    // Parser is immutable and thread-safe, build it once instead of per request
+    private final JwtParser parser;
+    // sha-256(token) -> verified claims, each entry lives only until the token's exp
+    private final Cache<String, Claims> verified;
 
     public JwtUtil(JwtProperties props) {
         this.props = props;
         this.key = Keys.hmacShaKeyFor(props.getSecret().getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(props.getCacheMaxSize())
+                .expireAfter(new UntilTokenExpiry())
+                .build();
     }
 
 
@@ -34,11 +53,53 @@ public class JwtUtil {
 
 
     public Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        String hash = hash(token);
+        Claims claims = verified.getIfPresent(hash);
+        if (claims != null) {
+            return claims;
+        }
+
+        claims = parser.parseClaimsJws(token).getBody();
+        // tokens without exp are never cached, nothing would bound their lifetime
+        if (claims.getExpiration() != null) {
+            verified.put(hash, claims);
+        }
+        return claims;
+    }
+
+    // Called on logout so a revoked token stops being served from the cache
+    public void evict(String jti) {
+        verified.asMap().values().removeIf(claims -> jti.equals(claims.getId()));
+    }
+
+    // Keyed by hash so raw bearer tokens are never kept on the heap
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String hash, Claims claims, long currentTime) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(String hash, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(hash, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String hash, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 
 
@@ -1,15 +1,65 @@
 package com.example.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 @Configuration
 public class PasswordConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(PasswordConfig.class);
+    // never below the bcrypt default, never so high a login takes seconds
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 16;
+    private static final int SAMPLES = 3;
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor passwordHashExecutor,
+            PasswordProperties props,
+            MeterRegistry meterRegistry
+    ) {
+        int strength = props.getBcryptStrength() > 0
+                ? props.getBcryptStrength()
+                : calibrate(props.getTargetHashMs());
+
+        return new PooledPasswordEncoder(
+                new BCryptPasswordEncoder(strength),
+                passwordHashExecutor,
+                Duration.ofMillis(props.getMaxQueueWaitMs()),
+                meterRegistry
+        );
+    }
+
+    // Times the minimum cost on this machine, then doubles per step (bcrypt cost is 2^strength)
+    static int calibrate(long targetHashMs) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        probe.encode("calibration-warmup");
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-sample");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double estimatedMs = best / 1_000_000.0;
+        int strength = MIN_STRENGTH;
+        while (strength < MAX_STRENGTH && estimatedMs * 2 <= targetHashMs) {
+            estimatedMs *= 2;
+            strength++;
+        }
+
+        log.info("Password hashing calibrated: strength={} estimatedMs={} targetMs={}",
+                strength, Math.round(estimatedMs), targetHashMs);
+        return strength;
     }
 }
@@ -0,0 +1,55 @@
+package com.example.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "password")
+public class PasswordProperties {
+    // Hashing never gets more than half the cores, the rest stay free for requests
+    private int hashThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int hashQueueCapacity = 32;
+    private long maxQueueWaitMs = 500;
+    // Startup calibration picks the highest bcrypt cost that hashes within this budget
+    private long targetHashMs = 80;
+    // Fixed cost, skips calibration when > 0
+    private int bcryptStrength = 0;
+
+    public int getHashThreads() {
+        return hashThreads;
+    }
+
+    public void setHashThreads(int hashThreads) {
+        this.hashThreads = hashThreads;
+    }
+
+    public int getHashQueueCapacity() {
+        return hashQueueCapacity;
+    }
+
+    public void setHashQueueCapacity(int hashQueueCapacity) {
+        this.hashQueueCapacity = hashQueueCapacity;
+    }
+
+    public long getMaxQueueWaitMs() {
+        return maxQueueWaitMs;
+    }
+
+    public void setMaxQueueWaitMs(long maxQueueWaitMs) {
+        this.maxQueueWaitMs = maxQueueWaitMs;
+    }
+
+    public long getTargetHashMs() {
+        return targetHashMs;
+    }
+
+    public void setTargetHashMs(long targetHashMs) {
+        this.targetHashMs = targetHashMs;
+    }
+
+    public int getBcryptStrength() {
+        return bcryptStrength;
+    }
+
+    public void setBcryptStrength(int bcryptStrength) {
+        this.bcryptStrength = bcryptStrength;
+    }
+}
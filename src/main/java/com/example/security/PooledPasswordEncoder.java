@@ -0,0 +1,115 @@
+package com.example.security;
+
+import com.example.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs every hash of the delegate encoder on the bounded password hash executor.
+ * Only the CPU-heavy part moves: user lookups stay on the calling thread (and its transaction).
+ * A full queue, or a task that waited longer than the limit, fails fast with 503.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolTaskExecutor executor;
+    private final long maxQueueWaitNanos;
+
+    private final Timer hashTimer;
+    private final Timer queueTimer;
+    private final Counter rejected;
+
+    public PooledPasswordEncoder(PasswordEncoder delegate,
+                                 ThreadPoolTaskExecutor executor,
+                                 Duration maxQueueWait,
+                                 MeterRegistry registry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+
+        Gauge.builder("password.hash.queue.depth", executor,
+                        e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("Hashes waiting for a thread")
+                .register(registry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Hashes currently running")
+                .register(registry);
+        this.hashTimer = Timer.builder("password.hash.duration")
+                .description("Time spent hashing")
+                .register(registry);
+        this.queueTimer = Timer.builder("password.hash.queue.wait")
+                .description("Time a hash waited for a thread")
+                .register(registry);
+        this.rejected = Counter.builder("password.hash.rejected")
+                .description("Hashes refused because the pool was saturated")
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // only parses the stored hash, cheap enough for the calling thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Supplier<T> hash) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long waited = System.nanoTime() - enqueuedAt;
+                queueTimer.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxQueueWaitNanos) {
+                    throw new QueueWaitExceededException();
+                }
+                return hashTimer.record(hash);
+            });
+        } catch (TaskRejectedException ex) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many authentication requests, try again shortly");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceUnavailableException("Authentication interrupted");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof QueueWaitExceededException) {
+                rejected.increment();
+                throw new ServiceUnavailableException("Too many authentication requests, try again shortly");
+            }
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+
+    private static class QueueWaitExceededException extends RuntimeException {
+        QueueWaitExceededException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.security;
+
+import java.time.Instant;
+
+// Credentials of a JWT-authenticated request: token identity plus its exp, null when the token has none
+public record TokenCredentials(
+        String jti,
+        Instant expiresAt
+) {}
@@ -0,0 +1,58 @@
+package com.example.shared;
+
+import com.example.base.ETags;
+import com.example.note.NoteResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Everything a shared-link check and read needs, detached from the persistence context so it can
+ * be cached. The note snapshot is shared between requests and must not be modified; etag is the
+ * content hash of that snapshot.
+ */
+public record ResolvedLink(
+        Long linkId,
+        Long noteId,
+        Long folderId,
+        String creatorEmail,
+        Set<SharedAction> actions,
+        Instant expiresAt,
+        Instant revokedAt,
+        boolean noteDeleted,
+        boolean folderDeleted,
+        NoteResponse note,
+        String etag
+) {
+
+    // Loads the note's owner and tags, call with the session open or with them fetched
+    public static ResolvedLink of(SharedLink link) {
+        NoteResponse note = NoteResponse.fromEntity(link.getNote());
+        return new ResolvedLink(
+                link.getId(),
+                link.getNote().getId(),
+                link.getNote().getFolder().getId(),
+                link.getCreator().getEmail(),
+                Set.copyOf(link.getActions()),
+                link.getExpiresAt(),
+                link.getRevokedAt(),
+                link.getNote().getDeletedAt() != null,
+                link.getNote().getFolder().getDeletedAt() != null,
+                note,
+                ETags.ofContent(note.getId(), note.getFolderId(), note.getUserName(), note.getContent(),
+                        new TreeSet<>(note.getTags()), note.getCreatedAt(), note.getUpdatedAt(), note.getVersion())
+        );
+    }
+
+    // Revoked and expired are final, such an entry can stay cached whatever its expiresAt
+    public boolean isTerminal(Instant now) {
+        return revokedAt != null || (expiresAt != null && !expiresAt.isAfter(now));
+    }
+
+    // Time left until expiresAt, null for a link that never expires
+    public Duration remainingLifetime(Instant now) {
+        return expiresAt == null ? null : Duration.between(now, expiresAt);
+    }
+}
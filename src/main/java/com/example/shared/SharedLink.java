@@ -11,7 +11,8 @@ import java.util.Set;
 public class SharedLink {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shared_link_seq")
+    @SequenceGenerator(name = "shared_link_seq", sequenceName = "shared_link_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -54,6 +55,10 @@ public class SharedLink {
         return token;
     }
 
+    public void setToken(String token) {
+        this.token = token;
+    }
+
     public Note getNote() {
         return note;
     }
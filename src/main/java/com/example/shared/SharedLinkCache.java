@@ -0,0 +1,123 @@
+package com.example.shared;
+
+import com.example.folder.FolderChangedEvent;
+import com.example.note.NoteChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolved shared links by token, so repeated anonymous reads of a link never touch the database.
+ * Note and folder writes drop the affected entries twice: right away, so the writing transaction
+ * reads its own change, and again once it completes, so an entry a concurrent reader loaded from
+ * the old state before the commit does not survive it.
+ * <p>
+ * The cache is per node and those events stay on the node that handled the write. Revokes and
+ * note deletes elsewhere reach it through {@link SharedLinkCacheSync} within a poll interval;
+ * other changes made elsewhere (edits, restores) are seen once the entry expires, after at most
+ * shared-link.cache-ttl-seconds.
+ */
+@Component
+public class SharedLinkCache {
+
+    private final Cache<String, ResolvedLink> links;
+    // bumped before every invalidation, lets a load that raced one discard what it read
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public SharedLinkCache(SharedLinkProperties props) {
+        Duration maxTtl = Duration.ofSeconds(props.getCacheTtlSeconds());
+        this.links = Caffeine.newBuilder()
+                .maximumSize(props.getCacheMaxSize())
+                .expireAfter(new Expiry<String, ResolvedLink>() {
+                    @Override
+                    public long expireAfterCreate(String token, ResolvedLink link, long currentTime) {
+                        return ttl(link, maxTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, ResolvedLink link, long currentTime,
+                                                  long currentDuration) {
+                        return ttl(link, maxTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, ResolvedLink link, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public Optional<ResolvedLink> get(String token) {
+        return Optional.ofNullable(links.getIfPresent(token));
+    }
+
+    // Take before loading, hand to put
+    public long generation() {
+        return invalidations.get();
+    }
+
+    // Drops the entry again if anything was invalidated since the load began, it may hold the old state
+    public void put(String token, ResolvedLink link, long generation) {
+        links.put(token, link);
+        if (invalidations.get() != generation) {
+            links.invalidate(token);
+        }
+    }
+
+    public void invalidate(String token) {
+        invalidations.incrementAndGet();
+        links.invalidate(token);
+    }
+
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        invalidateNote(event.noteId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterNoteChanged(NoteChangedEvent event) {
+        invalidateNote(event.noteId());
+    }
+
+    @EventListener
+    public void onFolderChanged(FolderChangedEvent event) {
+        invalidateFolder(event.folderId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterFolderChanged(FolderChangedEvent event) {
+        invalidateFolder(event.folderId());
+    }
+
+    // Scans at most cacheMaxSize entries; writes are rare next to link reads
+    public void invalidateNote(Long noteId) {
+        invalidations.incrementAndGet();
+        links.asMap().values().removeIf(link -> link.noteId().equals(noteId));
+    }
+
+    private void invalidateFolder(Long folderId) {
+        invalidations.incrementAndGet();
+        links.asMap().values().removeIf(link -> link.folderId().equals(folderId));
+    }
+
+    // Capped by the remaining lifetime while the link is live; revoked or expired entries cannot change
+    private static Duration ttl(ResolvedLink link, Duration maxTtl) {
+        Instant now = Instant.now();
+        if (link.isTerminal(now) || link.expiresAt() == null) {
+            return maxTtl;
+        }
+        Duration remaining = Duration.between(now, link.expiresAt());
+        return remaining.compareTo(maxTtl) < 0 ? remaining : maxTtl;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.shared;
+
+import com.example.note.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Carries revokes and note deletes made on other nodes into this node's {@link SharedLinkCache}.
+ * Events only reach the node that handled the write, so without this a revoked link would keep
+ * resolving here until its entry expired. Owner edits are not polled: they show up once the entry
+ * expires, after at most shared-link.cache-ttl-seconds.
+ */
+@Component
+public class SharedLinkCacheSync {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedLinkCacheSync.class);
+    // re-read a little behind the watermark so rows committed late, or stamped by a skewed clock, are not missed
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+
+    private final SharedLinkRepository links;
+    private final NoteRepository notes;
+    private final SharedLinkCache cache;
+
+    private volatile Instant watermark = Instant.now();
+
+    public SharedLinkCacheSync(SharedLinkRepository links, NoteRepository notes, SharedLinkCache cache) {
+        this.links = links;
+        this.notes = notes;
+        this.cache = cache;
+    }
+
+    @Scheduled(fixedDelayString = "${shared-link.invalidation-poll-ms:5000}")
+    public void poll() {
+        Instant start = Instant.now();
+        Instant since = watermark.minus(POLL_OVERLAP);
+        try {
+            links.findTokensRevokedSince(since).forEach(cache::invalidate);
+            notes.findIdsDeletedSince(since).forEach(cache::invalidateNote);
+            watermark = start;
+        } catch (DataAccessException ex) {
+            // the watermark stays put, the next poll covers this one's window too
+            log.warn("Shared link cache poll failed: error={}", ex.getMessage());
+        }
+    }
+}
@@ -1,26 +1,45 @@
 package com.example.shared;
 
 import com.example.note.NoteResponse;
-import com.example.note.Note;
-import com.example.exceptions.NotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/shared")
 public class SharedLinkController {
 
     private final SharedLinkService sharedLinkService;
+    private final Duration httpMaxAge;
 
-    public SharedLinkController(SharedLinkService sharedLinkService) {
+    public SharedLinkController(SharedLinkService sharedLinkService, SharedLinkProperties props) {
 
         this.sharedLinkService = sharedLinkService;
+        this.httpMaxAge = Duration.ofSeconds(props.getHttpMaxAgeSeconds());
     }
 
     // Creation handled in NoteService
 
+    // Cacheable by any proxy for at most httpMaxAge and never past the link's expiry, then revalidated
+    // against the snapshot's content hash. Errors (unknown, revoked, expired, deleted) are never stored.
     @GetMapping("/{token}")
-    public NoteResponse getShared(@PathVariable String token) {
-        return sharedLinkService.getNote(token);
+    public NoteResponse getShared(@PathVariable String token, HttpServletRequest request,
+                                  HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        ResolvedLink link = sharedLinkService.read(token);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(link).getHeaderValue());
+        // checkNotModified has already set the 304
+        if (new ServletWebRequest(request, response).checkNotModified(link.etag())) {
+            return null;
+        }
+        return link.note();
     }
 
     @PatchMapping("/{token}")
@@ -30,4 +49,14 @@ public class SharedLinkController {
     ) {
         return sharedLinkService.updateViaSharedLink(token, request);
     }
+
+    private CacheControl cacheControl(ResolvedLink link) {
+        Duration remaining = link.remainingLifetime(Instant.now());
+        Duration maxAge = remaining == null || remaining.compareTo(httpMaxAge) > 0 ? httpMaxAge : remaining;
+        // less than a second left: not worth caching at all
+        if (maxAge.getSeconds() <= 0) {
+            return CacheControl.noStore();
+        }
+        return CacheControl.maxAge(maxAge).cachePublic();
+    }
 }
@@ -0,0 +1,78 @@
+package com.example.shared;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "shared-link")
+public class SharedLinkProperties {
+    // Resolved links kept in memory for anonymous reads
+    private long cacheMaxSize = 10_000;
+    // Upper bound per entry, and so on how long an edit made on another node can go unseen here;
+    // a live link's entry never outlives its expiresAt either
+    private long cacheTtlSeconds = 60;
+    // How often revokes and note deletes made on other nodes are polled, see SharedLinkCacheSync
+    private long invalidationPollMs = 5_000;
+    // How long a reader waits for another request's load of the same link before giving up with 503
+    private long loadTimeoutMs = 2_000;
+    // Longest a client or proxy may reuse a shared read without revalidating; bounds how late it sees a revoke
+    private long httpMaxAgeSeconds = 60;
+    // HMAC key for signed link tokens, at least 32 characters; rotating it invalidates every signed link
+    private String tokenSecret;
+    // How often buffered view counts are written to shared_link_stats, also read by SharedLinkStatsFlushJob
+    private long statsFlushMs = 10_000;
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    public long getLoadTimeoutMs() {
+        return loadTimeoutMs;
+    }
+
+    public void setLoadTimeoutMs(long loadTimeoutMs) {
+        this.loadTimeoutMs = loadTimeoutMs;
+    }
+
+    public long getHttpMaxAgeSeconds() {
+        return httpMaxAgeSeconds;
+    }
+
+    public void setHttpMaxAgeSeconds(long httpMaxAgeSeconds) {
+        this.httpMaxAgeSeconds = httpMaxAgeSeconds;
+    }
+
+    public String getTokenSecret() {
+        return tokenSecret;
+    }
+
+    public void setTokenSecret(String tokenSecret) {
+        this.tokenSecret = tokenSecret;
+    }
+
+    public long getStatsFlushMs() {
+        return statsFlushMs;
+    }
+
+    public void setStatsFlushMs(long statsFlushMs) {
+        this.statsFlushMs = statsFlushMs;
+    }
+
+    public long getInvalidationPollMs() {
+        return invalidationPollMs;
+    }
+
+    public void setInvalidationPollMs(long invalidationPollMs) {
+        this.invalidationPollMs = invalidationPollMs;
+    }
+}
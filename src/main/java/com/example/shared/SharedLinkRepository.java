@@ -2,11 +2,30 @@ package com.example.shared;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface SharedLinkRepository extends JpaRepository<SharedLink, Long>, JpaSpecificationExecutor<SharedLink> {
     Optional<SharedLink> findByToken(String token);
+
+    // Everything ResolvedLink.of touches, in one statement
+    @Query("""
+            select l from SharedLink l
+            join fetch l.note n
+            join fetch n.folder
+            join fetch n.owner
+            join fetch l.creator
+            left join fetch l.actions
+            left join fetch n.tags
+            where l.token = :token
+            """)
+    Optional<SharedLink> findResolvableByToken(@Param("token") String token);
+
+    @Query("select l.token from SharedLink l where l.revokedAt >= :since")
+    List<String> findTokensRevokedSince(@Param("since") Instant since);
     int deleteByExpiresAtBefore(Instant now);
 }
@@ -3,6 +3,7 @@ package com.example.shared;
 import com.example.exceptions.ForbiddenException;
 import com.example.exceptions.NotFoundException;
 import com.example.note.Note;
+import com.example.note.NoteChangedEvent;
 import com.example.note.NoteRepository;
 import com.example.note.NoteResponse;
 import com.example.note.NoteService;
@@ -10,9 +11,12 @@ import com.example.user.User;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -21,56 +25,97 @@ public class SharedLinkService {
 
     private final SharedLinkRepository sharedLinkRepository;
     private final NoteRepository noteRepository;
+    private final SharedLinkCache linkCache;
+    private final ApplicationEventPublisher events;
+    private final SingleFlight<String, ResolvedLink> loads;
+    private final SharedLinkTokens tokens;
+    private final SharedLinkViewCounter views;
+    private final SharedLinkStatsQueries stats;
     private static final Logger log = LoggerFactory.getLogger(SharedLinkService.class);
-    public SharedLinkService(SharedLinkRepository repository, NoteRepository noteRepository) {
+    public SharedLinkService(SharedLinkRepository repository, NoteRepository noteRepository,
+                             SharedLinkCache linkCache, ApplicationEventPublisher events,
+                             SharedLinkProperties props, SharedLinkTokens tokens,
+                             SharedLinkViewCounter views, SharedLinkStatsQueries stats) {
         this.sharedLinkRepository = repository;
         this.noteRepository = noteRepository;
+        this.linkCache = linkCache;
+        this.events = events;
+        this.loads = new SingleFlight<>(Duration.ofMillis(props.getLoadTimeoutMs()));
+        this.tokens = tokens;
+        this.views = views;
+        this.stats = stats;
     }
 
+    // The signed token embeds the id, which the sequence assigns on save; the token is swapped in before commit
+    @Transactional
     public SharedLink create(Note note, Set<SharedAction> actions, User creator, Instant expiresAt) {
-        String token = UUID.randomUUID().toString();
-        SharedLink link = new SharedLink(token, note, creator, actions, expiresAt);
+        SharedLink link = new SharedLink(UUID.randomUUID().toString(), note, creator, actions, expiresAt);
         sharedLinkRepository.save(link);
-        log.info("Shared link created: creator={}, id={}, time={}",
-                link.getCreator().getEmail(), link.getId(), Instant.now());
+        link.setToken(tokens.sign(link.getId(), expiresAt));
+        // creator may be an uninitialized reference, its id needs no extra SELECT
+        log.info("Shared link created: creatorId={}, id={}, time={}",
+                creator.getId(), link.getId(), Instant.now());
         return link;
     }
 
+    // Authoritative check against the database, for writes through a link
     public SharedLink validate(String token, SharedAction action) {
-        SharedLink link=  sharedLinkRepository.findByToken(token)
+        tokens.check(token);
+        SharedLink link = sharedLinkRepository.findResolvableByToken(token)
                 .orElseThrow(() -> new NotFoundException("Invalid link"));
+        check(ResolvedLink.of(link), action);
+        return link;
+    }
 
-        if (link.getRevokedAt() != null) {
+    // Read path: served from SharedLinkCache; on a miss, concurrent readers of a token share one load.
+    // Forged, malformed and expired signed tokens never get that far.
+    public ResolvedLink resolve(String token, SharedAction action) {
+        tokens.check(token);
+        ResolvedLink link = linkCache.get(token)
+                .orElseGet(() -> loads.load(token, () -> load(token)));
+        check(link, action);
+        return link;
+    }
+
+    private ResolvedLink load(String token) {
+        long generation = linkCache.generation();
+        ResolvedLink loaded = sharedLinkRepository.findResolvableByToken(token)
+                .map(ResolvedLink::of)
+                .orElseThrow(() -> new NotFoundException("Invalid link"));
+        linkCache.put(token, loaded, generation);
+        return loaded;
+    }
+
+    private void check(ResolvedLink link, SharedAction action) {
+        if (link.revokedAt() != null) {
             log.warn("Attempt to use revoked link: creator={}, id={}, time={}",
-                    link.getCreator().getEmail(), link.getId(), Instant.now());
+                    link.creatorEmail(), link.linkId(), Instant.now());
             throw new ForbiddenException("Link revoked");
         }
 
-        Instant expiresAt = link.getExpiresAt();
+        Instant expiresAt = link.expiresAt();
         if (expiresAt != null && expiresAt.isBefore(Instant.now())) {
             log.warn("Attempt to use expired link: creator={}, id={}, time={}",
-                    link.getCreator().getEmail(), link.getId(), Instant.now());
+                    link.creatorEmail(), link.linkId(), Instant.now());
             throw new ForbiddenException("Link expired");
         }
 
-        if (!link.getActions().contains(action)) {
+        if (!link.actions().contains(action)) {
             log.warn("Attempt to use forbidden action link: creator={}, id={}, time={}",
-                    link.getCreator().getEmail(), link.getId(), Instant.now());
+                    link.creatorEmail(), link.linkId(), Instant.now());
             throw new ForbiddenException("Action not allowed");
         }
 
-        if (link.getNote().getDeletedAt() != null) {
+        if (link.noteDeleted()) {
             log.warn("Attempt to access deleted link: creator={}, id={}, time={}",
-                    link.getCreator().getEmail(), link.getId(), Instant.now());
+                    link.creatorEmail(), link.linkId(), Instant.now());
             throw new ForbiddenException("Note deleted");
         }
-        if (link.getNote().getFolder().getDeletedAt() != null) {
+        if (link.folderDeleted()) {
             log.warn("Attempt to access deleted link: creator={}, id={}, time={}",
-                    link.getCreator().getEmail(), link.getId(), Instant.now());
+                    link.creatorEmail(), link.linkId(), Instant.now());
             throw new ForbiddenException("Note's folder deleted");
         }
-
-        return link;
     }
 
     public void revoke(String token) {
@@ -83,13 +128,23 @@ public class SharedLinkService {
 
         link.revoke(Instant.now());
         sharedLinkRepository.save(link);
+        linkCache.invalidate(token);
     }
 
-    public NoteResponse getNote(String token) {
-        SharedLink link = validate(token, SharedAction.READ);
+    // The link with its note snapshot and ETag, the controller needs both for conditional GETs
+    public ResolvedLink read(String token) {
+        ResolvedLink link = resolve(token, SharedAction.READ);
+        Instant now = Instant.now();
         log.info("Shared link accessed: creator={}, id={}, time={}",
-                link.getCreator().getEmail(), link.getId(), Instant.now());
-        return NoteResponse.fromEntity(link.getNote());
+                link.creatorEmail(), link.linkId(), now);
+        // in memory only, SharedLinkStatsFlushJob writes it out
+        views.record(link.linkId(), now);
+        return link;
+    }
+
+    // Ownership of the note is checked by the caller
+    public List<SharedLinkStatsResponse> statsForNote(Long noteId) {
+        return stats.forNote(noteId);
     }
 
     //TODO: make append only
@@ -103,6 +158,8 @@ public class SharedLinkService {
             note.setUpdatedAt(Instant.now());
         }
         noteRepository.save(note);
+        // drops every cached link to this note, not only the one written through
+        events.publishEvent(new NoteChangedEvent(note.getOwner().getId(), note.getId(), note.getContent()));
         log.info("Shared link updated: creator={}, id={}, time={}",
                 link.getCreator().getEmail(), link.getId(), Instant.now());
         return NoteResponse.fromEntity(note);
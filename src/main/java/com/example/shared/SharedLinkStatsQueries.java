@@ -0,0 +1,70 @@
+package com.example.shared;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+
+@Repository
+public class SharedLinkStatsQueries {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public SharedLinkStatsQueries(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // One JDBC batch of upserts, in link id order so concurrent flushes from several instances
+    // lock rows in the same order. Links deleted since they were viewed are skipped. A missing
+    // lastAccessedAt leaves the stored one alone, GREATEST ignores nulls.
+    public void addViews(List<SharedLinkViewCounter.Pending> rows) {
+        SqlParameterSource[] batch = rows.stream()
+                .sorted(Comparator.comparing(SharedLinkViewCounter.Pending::linkId))
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("linkId", row.linkId())
+                        .addValue("views", row.views())
+                        .addValue("lastAccessedAt", row.lastAccessedAt() == null
+                                ? null
+                                : OffsetDateTime.ofInstant(row.lastAccessedAt(), ZoneOffset.UTC)))
+                .toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate("""
+                        INSERT INTO shared_link_stats (shared_link_id, view_count, last_accessed_at)
+                        SELECT l.id, :views, CAST(:lastAccessedAt AS TIMESTAMPTZ)
+                        FROM shared_link l
+                        WHERE l.id = :linkId
+                        ON CONFLICT (shared_link_id) DO UPDATE
+                        SET view_count = shared_link_stats.view_count + EXCLUDED.view_count,
+                            last_accessed_at = GREATEST(shared_link_stats.last_accessed_at, EXCLUDED.last_accessed_at)
+                        """,
+                batch);
+    }
+
+    // Every link of the note, viewed or not; the caller checks the note belongs to the user
+    public List<SharedLinkStatsResponse> forNote(Long noteId) {
+        return jdbc.query("""
+                        SELECT l.id, l.expires_at, l.revoked_at,
+                               coalesce(s.view_count, 0) AS view_count, s.last_accessed_at
+                        FROM shared_link l
+                        LEFT JOIN shared_link_stats s ON s.shared_link_id = l.id
+                        WHERE l.note_id = :noteId
+                        ORDER BY l.id
+                        """,
+                new MapSqlParameterSource("noteId", noteId),
+                (rs, i) -> new SharedLinkStatsResponse(
+                        rs.getLong("id"),
+                        toInstant(rs.getObject("expires_at", OffsetDateTime.class)),
+                        toInstant(rs.getObject("revoked_at", OffsetDateTime.class)),
+                        rs.getLong("view_count"),
+                        toInstant(rs.getObject("last_accessed_at", OffsetDateTime.class))));
+    }
+
+    private static Instant toInstant(OffsetDateTime at) {
+        return at == null ? null : at.toInstant();
+    }
+}
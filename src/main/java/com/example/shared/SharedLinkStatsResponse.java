@@ -0,0 +1,13 @@
+package com.example.shared;
+
+import java.time.Instant;
+
+// Views counted up to the last flush, so recent ones may be missing for a few seconds
+public record SharedLinkStatsResponse(
+        Long linkId,
+        Instant expiresAt,
+        Instant revokedAt,
+        long viewCount,
+        Instant lastAccessedAt
+) {
+}
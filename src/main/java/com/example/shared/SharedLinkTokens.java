@@ -0,0 +1,103 @@
+package com.example.shared;
+
+import com.example.exceptions.ForbiddenException;
+import com.example.exceptions.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Shared-link tokens that can be checked without the database: {@code v1.<payload>.<signature>},
+ * where the payload is the link id and expiry (epoch millis, 0 for none) and the signature a
+ * truncated HMAC-SHA256 over {@code v1.<payload>}. A token passing the check is only well formed
+ * and unexpired; revocation, actions and the note state still come from the link itself.
+ * Random UUID tokens issued before this format keep going to the database.
+ */
+@Component
+public class SharedLinkTokens {
+
+    private static final String V1 = "v1.";
+    private static final int SIGNATURE_BYTES = 16;
+    // v1. + 22 payload chars + . + 22 signature chars, with room to spare
+    private static final int MAX_LENGTH = 64;
+    private static final Pattern LEGACY = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final Logger log = LoggerFactory.getLogger(SharedLinkTokens.class);
+
+    private final SecretKeySpec key;
+
+    public SharedLinkTokens(SharedLinkProperties props) {
+        String secret = props.getTokenSecret();
+        if (secret == null || secret.length() < 32) {
+            throw new IllegalStateException("shared-link.token-secret must be at least 32 characters");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+
+    public String sign(Long linkId, Instant expiresAt) {
+        ByteBuffer payload = ByteBuffer.allocate(2 * Long.BYTES)
+                .putLong(linkId)
+                .putLong(expiresAt == null ? 0 : expiresAt.toEpochMilli());
+        String signed = V1 + ENCODER.encodeToString(payload.array());
+        return signed + "." + ENCODER.encodeToString(signature(signed));
+    }
+
+    // Throws what the database check would for a token that cannot belong to a usable link
+    public void check(String token) {
+        if (LEGACY.matcher(token).matches()) {
+            return;
+        }
+        if (!token.startsWith(V1)) {
+            throw new NotFoundException("Invalid link");
+        }
+
+        int dot = token.lastIndexOf('.');
+        if (dot <= V1.length() || token.length() > MAX_LENGTH) {
+            throw new NotFoundException("Invalid link");
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(V1.length(), dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException ex) {
+            throw new NotFoundException("Invalid link");
+        }
+        // the payload of a forged token is never looked at
+        if (payload.length != 2 * Long.BYTES
+                || !MessageDigest.isEqual(signature, signature(token.substring(0, dot)))) {
+            throw new NotFoundException("Invalid link");
+        }
+
+        ByteBuffer fields = ByteBuffer.wrap(payload);
+        long linkId = fields.getLong();
+        long expiresAt = fields.getLong();
+        if (expiresAt != 0 && expiresAt <= Instant.now().toEpochMilli()) {
+            log.warn("Attempt to use expired link: id={}, time={}", linkId, Instant.now());
+            throw new ForbiddenException("Link expired");
+        }
+    }
+
+    private byte[] signature(String signed) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(signed.getBytes(StandardCharsets.UTF_8)), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.shared;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Views of shared links since the last flush, kept in memory so the anonymous read path never
+ * writes. Counters are striped (LongAdder) so a hot link does not make its readers contend.
+ * A drain swaps each link's counter out rather than resetting it, and reads the swapped-out ones
+ * once more on the next drain, so a view recorded into a counter just as it was taken still
+ * counts. Only views pending when the process dies are lost.
+ */
+@Component
+public class SharedLinkViewCounter {
+
+    private final Map<Long, Views> pending = new ConcurrentHashMap<>();
+    // counters taken by the previous drain, with what was reported from them
+    private List<Taken> taken = List.of();
+
+    // Views since the last flush, drained with one row per link; lastAccessedAt may be null
+    public record Pending(Long linkId, long views, Instant lastAccessedAt) {
+    }
+
+    private static final class Views {
+        final LongAdder count = new LongAdder();
+        final LongAccumulator lastAccessedMillis = new LongAccumulator(Math::max, 0);
+    }
+
+    private record Taken(Long linkId, Views views, long reported) {
+    }
+
+    public void record(Long linkId, Instant at) {
+        record(linkId, 1, at);
+    }
+
+    // Hands back everything counted since the previous drain
+    public synchronized List<Pending> drain() {
+        Map<Long, Pending> drained = new HashMap<>();
+        // stragglers that reached the previous round's counters after they were read
+        for (Taken previous : taken) {
+            long late = previous.views().count.sum() - previous.reported();
+            if (late > 0) {
+                add(drained, previous.linkId(), late, previous.views());
+            }
+        }
+
+        List<Taken> now = new ArrayList<>();
+        for (Long linkId : pending.keySet()) {
+            Views views = pending.remove(linkId);
+            if (views == null) {
+                continue;
+            }
+            long count = views.count.sum();
+            now.add(new Taken(linkId, views, count));
+            if (count > 0) {
+                add(drained, linkId, count, views);
+            }
+        }
+        taken = now;
+        return new ArrayList<>(drained.values());
+    }
+
+    // A failed flush puts its rows back to go out with the next one
+    public void restore(List<Pending> rows) {
+        rows.forEach(row -> record(row.linkId(), row.views(), row.lastAccessedAt()));
+    }
+
+    // The time goes in before the count: a drain that sees the view also sees when it happened
+    private void record(Long linkId, long count, Instant at) {
+        Views views = pending.computeIfAbsent(linkId, id -> new Views());
+        if (at != null) {
+            views.lastAccessedMillis.accumulate(at.toEpochMilli());
+        }
+        views.count.add(count);
+    }
+
+    private static void add(Map<Long, Pending> drained, Long linkId, long count, Views views) {
+        long millis = views.lastAccessedMillis.get();
+        Instant lastAccessedAt = millis == 0 ? null : Instant.ofEpochMilli(millis);
+        drained.merge(linkId, new Pending(linkId, count, lastAccessedAt), (a, b) -> new Pending(linkId,
+                a.views() + b.views(), latest(a.lastAccessedAt(), b.lastAccessedAt())));
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.sync;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+// Reads the per-user counter the V8 triggers bump on every write to the user's data
+@Repository
+public class ChangeCounterQueries {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // 0 until the user's first write; native, so pending writes are flushed and counted first
+    public long current(Long userId) {
+        Object counter = em.createNativeQuery("""
+                        SELECT coalesce((SELECT counter FROM user_change_counter WHERE user_id = :userId), 0)
+                        """)
+                .setParameter("userId", userId)
+                .getSingleResult();
+        return ((Number) counter).longValue();
+    }
+}
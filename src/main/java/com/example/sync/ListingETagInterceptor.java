@@ -0,0 +1,52 @@
+package com.example.sync;
+
+import com.example.auth.AuthenticatedUser;
+import com.example.auth.CurrentUser;
+import com.example.base.ETags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Conditional GET for the caller's listings. The ETag is the caller's change counter, which moves
+ * on any write to their notes, folders, tags or links, so it is read before the handler runs:
+ * a matching If-None-Match answers 304 without running the listing query or serializing a page.
+ * Reading the counter first also means a write racing the listing can only make the tag too old,
+ * never too new.
+ */
+@Component
+public class ListingETagInterceptor implements HandlerInterceptor {
+
+    private final CurrentUser currentUser;
+    private final ChangeCounterQueries counters;
+
+    public ListingETagInterceptor(CurrentUser currentUser, ChangeCounterQueries counters) {
+        this.currentUser = currentUser;
+        this.counters = counters;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return true;
+        }
+
+        AuthenticatedUser user = currentUser.get(auth);
+        String etag = ETags.ofCounter(user.id(), counters.current(user.id()));
+        // cacheable by the client only, and always revalidated
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
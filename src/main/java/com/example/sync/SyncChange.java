@@ -0,0 +1,20 @@
+package com.example.sync;
+
+import com.example.folder.FolderResponse;
+import com.example.note.NoteResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+// One entry of the change stream; note or folder is only set for UPSERT
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SyncChange(
+        SyncEntity entity,
+        Long id,
+        SyncOperation operation,
+        long changeSeq,
+        Instant at,
+        NoteResponse note,
+        FolderResponse folder
+) {
+}
@@ -0,0 +1,7 @@
+package com.example.sync;
+
+import java.util.List;
+
+// nextCursor is always set: store it and pass it as since on the next call, right away when hasMore
+public record SyncChangesResponse(List<SyncChange> changes, String nextCursor, boolean hasMore) {
+}
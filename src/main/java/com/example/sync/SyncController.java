@@ -0,0 +1,28 @@
+package com.example.sync;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/sync")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    // Delta sync: notes and folders created, updated, soft deleted or purged after the since cursor
+    @GetMapping("/changes")
+    public SyncChangesResponse changes(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit,
+            Authentication auth
+    ) {
+        return syncService.changesSince(since, limit, auth);
+    }
+}
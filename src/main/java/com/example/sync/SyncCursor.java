@@ -0,0 +1,42 @@
+package com.example.sync;
+
+import com.example.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Position in a user's change stream, ordered by (changeSeq, kind, id), handed to clients as an opaque string
+public record SyncCursor(long changeSeq, int kind, long id) {
+
+    // before everything, rows written before V9 carry change_seq 0
+    public static final SyncCursor START = new SyncCursor(-1, 0, 0);
+
+    public boolean isBefore(SyncCursor other) {
+        if (changeSeq != other.changeSeq) {
+            return changeSeq < other.changeSeq;
+        }
+        if (kind != other.kind) {
+            return kind < other.kind;
+        }
+        return id < other.id;
+    }
+
+    public String encode() {
+        String raw = changeSeq + ":" + kind + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3) {
+                throw new BadRequestException("Invalid sync cursor");
+            }
+            return new SyncCursor(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid sync cursor");
+        }
+    }
+}
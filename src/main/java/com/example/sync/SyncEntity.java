@@ -0,0 +1,6 @@
+package com.example.sync;
+
+public enum SyncEntity {
+    NOTE,
+    FOLDER
+}
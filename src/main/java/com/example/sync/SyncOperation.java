@@ -0,0 +1,8 @@
+package com.example.sync;
+
+// UPSERT carries the current state; DELETED is a soft delete that can still be restored; PURGED is final
+public enum SyncOperation {
+    UPSERT,
+    DELETED,
+    PURGED
+}
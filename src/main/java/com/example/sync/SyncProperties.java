@@ -0,0 +1,17 @@
+package com.example.sync;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "sync")
+public class SyncProperties {
+    // Purge tombstones are kept this long; clients that stay offline longer must resync from scratch
+    private long tombstoneRetentionDays = 90;
+
+    public long getTombstoneRetentionDays() {
+        return tombstoneRetentionDays;
+    }
+
+    public void setTombstoneRetentionDays(long tombstoneRetentionDays) {
+        this.tombstoneRetentionDays = tombstoneRetentionDays;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.sync;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Reads a user's change stream: notes, folders and purge tombstones merged into one sequence
+ * ordered by (change_seq, kind, id). Each branch is limited on its own (owner_id, change_seq) index
+ * before the merge, so a page never scans more than three times its size.
+ */
+@Repository
+public class SyncQueries {
+
+    static final int NOTE = 0;
+    static final int FOLDER = 1;
+    static final int PURGED_NOTE = 2;
+    static final int PURGED_FOLDER = 3;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // One row of the stream; columns that do not apply to its kind are null
+    public record ChangeRow(
+            int kind,
+            Long id,
+            long changeSeq,
+            Instant deletedAt,
+            String content,
+            Long folderId,
+            String name,
+            Instant createdAt,
+            Instant updatedAt,
+            Long version
+    ) {
+    }
+
+    public List<ChangeRow> changesAfter(Long ownerId, SyncCursor after, int limit) {
+        NativeQuery<?> query = em.createNativeQuery("""
+                        SELECT kind, id, change_seq, deleted_at, content, folder_id, name,
+                               created_at, updated_at, version
+                        FROM (
+                            (SELECT 0 AS kind, n.id, n.change_seq, n.deleted_at, n.content, n.folder_id,
+                                    CAST(NULL AS VARCHAR) AS name, n.created_at, n.updated_at, n.version
+                             FROM note n
+                             WHERE n.owner_id = :ownerId
+                               AND n.change_seq >= :seq
+                               AND (n.change_seq, 0, n.id) > (:seq, :kind, :id)
+                             ORDER BY n.change_seq, n.id
+                             LIMIT :limit)
+                            UNION ALL
+                            (SELECT 1, f.id, f.change_seq, f.deleted_at, NULL, NULL,
+                                    f.name, f.created_at, f.updated_at, NULL
+                             FROM folders f
+                             WHERE f.owner_id = :ownerId
+                               AND f.change_seq >= :seq
+                               AND (f.change_seq, 1, f.id) > (:seq, :kind, :id)
+                             ORDER BY f.change_seq, f.id
+                             LIMIT :limit)
+                            UNION ALL
+                            (SELECT CASE t.entity_type WHEN 'NOTE' THEN 2 ELSE 3 END AS kind,
+                                    t.entity_id AS id, t.change_seq, t.purged_at, NULL, NULL,
+                                    NULL, NULL, NULL, NULL
+                             FROM sync_tombstone t
+                             WHERE t.owner_id = :ownerId
+                               AND t.change_seq >= :seq
+                               AND (t.change_seq, CASE t.entity_type WHEN 'NOTE' THEN 2 ELSE 3 END, t.entity_id)
+                                   > (:seq, :kind, :id)
+                             ORDER BY t.change_seq, kind, t.entity_id
+                             LIMIT :limit)
+                        ) changes
+                        ORDER BY change_seq, kind, id
+                        LIMIT :limit
+                        """)
+                .unwrap(NativeQuery.class)
+                .addScalar("kind", Integer.class)
+                .addScalar("id", Long.class)
+                .addScalar("change_seq", Long.class)
+                .addScalar("deleted_at", Instant.class)
+                .addScalar("content", String.class)
+                .addScalar("folder_id", Long.class)
+                .addScalar("name", String.class)
+                .addScalar("created_at", Instant.class)
+                .addScalar("updated_at", Instant.class)
+                .addScalar("version", Long.class);
+        query.setParameter("ownerId", ownerId);
+        query.setParameter("seq", after.changeSeq());
+        query.setParameter("kind", after.kind());
+        query.setParameter("id", after.id());
+        query.setParameter("limit", limit);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = (List<Object[]>) query.getResultList();
+        return rows.stream()
+                .map(row -> new ChangeRow(
+                        (Integer) row[0],
+                        (Long) row[1],
+                        (Long) row[2],
+                        (Instant) row[3],
+                        (String) row[4],
+                        (Long) row[5],
+                        (String) row[6],
+                        (Instant) row[7],
+                        (Instant) row[8],
+                        (Long) row[9]))
+                .toList();
+    }
+
+    // Position of the last purged tombstone; a cursor before it may have missed a purge. START when none
+    public SyncCursor tombstoneHorizon(Long ownerId) {
+        List<?> rows = em.createNativeQuery("""
+                        SELECT tombstone_horizon, tombstone_horizon_kind, tombstone_horizon_id
+                        FROM user_change_counter
+                        WHERE user_id = :ownerId
+                          AND tombstone_horizon > 0
+                        """)
+                .setParameter("ownerId", ownerId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return SyncCursor.START;
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return new SyncCursor(((Number) row[0]).longValue(), ((Number) row[1]).intValue(),
+                ((Number) row[2]).longValue());
+    }
+
+    // Drops tombstones past retention and moves each affected user's horizon up to the highest
+    // position among them, in one statement. Data-modifying CTEs always run, so the horizon
+    // UPDATE needs no reference from the final SELECT.
+    public long purgeTombstonesBefore(Instant cutoff) {
+        Object purged = em.createNativeQuery("""
+                        WITH expired AS (
+                            DELETE FROM sync_tombstone
+                            WHERE purged_at < :cutoff
+                            RETURNING owner_id, change_seq,
+                                      CASE entity_type WHEN 'NOTE' THEN 2 ELSE 3 END AS kind, entity_id
+                        ), horizons AS (
+                            UPDATE user_change_counter c
+                            SET tombstone_horizon = e.change_seq,
+                                tombstone_horizon_kind = e.kind,
+                                tombstone_horizon_id = e.entity_id
+                            FROM (SELECT DISTINCT ON (owner_id) owner_id, change_seq, kind, entity_id
+                                  FROM expired
+                                  ORDER BY owner_id, change_seq DESC, kind DESC, entity_id DESC) e
+                            WHERE c.user_id = e.owner_id
+                              AND (e.change_seq, e.kind, e.entity_id)
+                                  > (c.tombstone_horizon, c.tombstone_horizon_kind, c.tombstone_horizon_id)
+                        )
+                        SELECT count(*) FROM expired
+                        """)
+                .setParameter("cutoff", cutoff)
+                .getSingleResult();
+        return ((Number) purged).longValue();
+    }
+}
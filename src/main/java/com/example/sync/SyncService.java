@@ -0,0 +1,108 @@
+package com.example.sync;
+
+import com.example.auth.AuthenticatedUser;
+import com.example.auth.CurrentUser;
+import com.example.auth.OwnerAction;
+import com.example.auth.OwnerAuthorization;
+import com.example.exceptions.GoneException;
+import com.example.folder.FolderResponse;
+import com.example.note.NoteRepository;
+import com.example.note.NoteResponse;
+import com.example.note.NoteRow;
+import jakarta.transaction.Transactional;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class SyncService {
+
+    private static final int DEFAULT_LIMIT = 500;
+    private static final int MAX_LIMIT = 1000;
+
+    private final SyncQueries syncQueries;
+    private final NoteRepository noteRepository;
+    private final CurrentUser currentUser;
+    private final OwnerAuthorization ownedAuth;
+
+    public SyncService(SyncQueries syncQueries,
+                       NoteRepository noteRepository,
+                       CurrentUser currentUser,
+                       OwnerAuthorization ownedAuth) {
+        this.syncQueries = syncQueries;
+        this.noteRepository = noteRepository;
+        this.currentUser = currentUser;
+        this.ownedAuth = ownedAuth;
+    }
+
+    // Everything that changed after since, oldest first; no since means a full sync from the start
+    @Transactional
+    public SyncChangesResponse changesSince(String since, Integer limit, Authentication auth) {
+        AuthenticatedUser user = currentUser.get(auth);
+        ownedAuth.authorize(OwnerAction.READ);
+
+        SyncCursor after = SyncCursor.START;
+        if (since != null && !since.isBlank()) {
+            after = SyncCursor.decode(since);
+            // compared by full position: rows of one transaction share a change_seq and a page can end
+            // among them, a cursor that stopped there may have missed the rest of its purged tombstones
+            if (after.isBefore(syncQueries.tombstoneHorizon(user.id()))) {
+                throw new GoneException("Sync cursor is older than the tombstone retention, sync again without since");
+            }
+        }
+
+        int size = limit == null ? DEFAULT_LIMIT : Math.min(Math.max(limit, 1), MAX_LIMIT);
+        // one extra row tells whether the client should call again right away
+        List<SyncQueries.ChangeRow> rows = syncQueries.changesAfter(user.id(), after, size + 1);
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+
+        List<Long> liveNoteIds = rows.stream()
+                .filter(row -> row.kind() == SyncQueries.NOTE && row.deletedAt() == null)
+                .map(SyncQueries.ChangeRow::id)
+                .toList();
+        Map<Long, Set<String>> tags = noteRepository.findTagNamesByNote(liveNoteIds);
+
+        List<SyncChange> changes = rows.stream()
+                .map(row -> toChange(row, tags, user))
+                .toList();
+        SyncCursor next = after;
+        if (!rows.isEmpty()) {
+            SyncQueries.ChangeRow last = rows.get(rows.size() - 1);
+            next = new SyncCursor(last.changeSeq(), last.kind(), last.id());
+        }
+        return new SyncChangesResponse(changes, next.encode(), hasMore);
+    }
+
+    private static SyncChange toChange(SyncQueries.ChangeRow row, Map<Long, Set<String>> tags, AuthenticatedUser user) {
+        return switch (row.kind()) {
+            case SyncQueries.NOTE -> row.deletedAt() != null
+                    ? new SyncChange(SyncEntity.NOTE, row.id(), SyncOperation.DELETED, row.changeSeq(),
+                            row.deletedAt(), null, null)
+                    : new SyncChange(SyncEntity.NOTE, row.id(), SyncOperation.UPSERT, row.changeSeq(),
+                            row.updatedAt(), NoteResponse.fromRow(new NoteRow(
+                                    row.id(),
+                                    row.content(),
+                                    row.folderId(),
+                                    row.createdAt(),
+                                    row.updatedAt(),
+                                    row.version(),
+                                    tags.getOrDefault(row.id(), Set.of())), user.email()), null);
+            case SyncQueries.FOLDER -> row.deletedAt() != null
+                    ? new SyncChange(SyncEntity.FOLDER, row.id(), SyncOperation.DELETED, row.changeSeq(),
+                            row.deletedAt(), null, null)
+                    : new SyncChange(SyncEntity.FOLDER, row.id(), SyncOperation.UPSERT, row.changeSeq(),
+                            row.updatedAt(), null, new FolderResponse(
+                                    row.id(), row.name(), user.email(), row.createdAt(), row.updatedAt()));
+            case SyncQueries.PURGED_NOTE -> new SyncChange(SyncEntity.NOTE, row.id(), SyncOperation.PURGED,
+                    row.changeSeq(), row.deletedAt(), null, null);
+            default -> new SyncChange(SyncEntity.FOLDER, row.id(), SyncOperation.PURGED,
+                    row.changeSeq(), row.deletedAt(), null, null);
+        };
+    }
+}
@@ -5,7 +5,8 @@ import jakarta.persistence.*;
 @Entity
 public class Tag {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tag_seq")
+    @SequenceGenerator(name = "tag_seq", sequenceName = "tag_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -0,0 +1,4 @@
+package com.example.user;
+
+public record UserChangedEvent(String email) {
+}
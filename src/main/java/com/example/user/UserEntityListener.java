@@ -0,0 +1,27 @@
+package com.example.user;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import org.springframework.context.ApplicationEventPublisher;
+
+// Instantiated by Hibernate through Spring's bean container, so it can be injected
+public class UserEntityListener {
+
+    private final ApplicationEventPublisher events;
+
+    public UserEntityListener(ApplicationEventPublisher events) {
+        this.events = events;
+    }
+
+    // PrePersist too: with sequence ids the INSERT waits for flush, a cached principal for a
+    // re-created email must be gone before then
+    @PrePersist
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(User user) {
+        events.publishEvent(new UserChangedEvent(user.getEmail()));
+    }
+}
@@ -0,0 +1,12 @@
+-- View counts and last access per shared link, written behind by SharedLinkStatsFlushJob in batches.
+-- Kept out of shared_link itself so flushes never touch the rows link reads and revokes use, and
+-- no V8 trigger fires: stats moving does not change any listing.
+CREATE TABLE shared_link_stats
+(
+    shared_link_id   BIGINT         NOT NULL,
+    view_count       BIGINT         NOT NULL DEFAULT 0,
+    last_accessed_at TIMESTAMPTZ(6),
+    CONSTRAINT pk_shared_link_stats PRIMARY KEY (shared_link_id),
+    CONSTRAINT fk_shared_link_stats_on_shared_link FOREIGN KEY (shared_link_id)
+        REFERENCES shared_link (id) ON DELETE CASCADE
+);
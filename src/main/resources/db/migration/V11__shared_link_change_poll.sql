@@ -0,0 +1,4 @@
+-- SharedLinkCacheSync polls for revokes and note deletes made on other nodes every few seconds;
+-- both columns are NULL for almost every row, so partial indexes keep the polls cheap.
+CREATE INDEX idx_shared_link_revoked_at ON shared_link (revoked_at) WHERE revoked_at IS NOT NULL;
+CREATE INDEX idx_note_deleted_at ON note (deleted_at) WHERE deleted_at IS NOT NULL;
@@ -0,0 +1,12 @@
+-- The horizon becomes the full stream position (change_seq, kind, entity_id) of the last purged
+-- tombstone. Rows of one transaction share a change_seq, so change_seq alone cannot tell a cursor
+-- that stopped partway through the horizon's transaction from one that read all of it.
+-- Existing horizons keep their change_seq with the highest position in it, which still rejects
+-- every cursor inside that change_seq, as before.
+ALTER TABLE user_change_counter ADD COLUMN tombstone_horizon_kind INT NOT NULL DEFAULT 0;
+ALTER TABLE user_change_counter ADD COLUMN tombstone_horizon_id BIGINT NOT NULL DEFAULT 0;
+
+UPDATE user_change_counter
+SET tombstone_horizon_kind = 3,
+    tombstone_horizon_id   = 9223372036854775807
+WHERE tombstone_horizon > 0;
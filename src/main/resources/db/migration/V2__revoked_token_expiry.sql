@@ -0,0 +1,7 @@
+-- Revoked tokens are only worth keeping until the token itself expires.
+-- Rows written before this column existed keep expires_at NULL and are
+-- purged once revoked_at is older than the configured token lifetime.
+ALTER TABLE revoked_token
+    ADD COLUMN expires_at TIMESTAMPTZ(6);
+
+CREATE INDEX idx_revoked_token_expires_at ON revoked_token (expires_at);
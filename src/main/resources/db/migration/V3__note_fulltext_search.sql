@@ -0,0 +1,7 @@
+-- Full-text search for /notes/search?mode=fulltext.
+-- Generated column keeps the vector in sync on every write, whatever path wrote it.
+ALTER TABLE note
+    ADD COLUMN content_tsv tsvector
+        GENERATED ALWAYS AS (to_tsvector('english', coalesce(content, ''))) STORED;
+
+CREATE INDEX idx_note_content_tsv ON note USING gin (content_tsv);
@@ -0,0 +1,12 @@
+-- Trigram index for /notes/search?mode=fuzzy, serves both LIKE '%text%' and word similarity.
+-- Creating the extension needs privileges some managed databases do not grant; the migration
+-- still succeeds there and fuzzy search falls back to plain substring matching.
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+    CREATE INDEX idx_note_content_trgm ON note USING gin (lower(content) gin_trgm_ops);
+EXCEPTION
+    WHEN insufficient_privilege OR undefined_file OR feature_not_supported THEN
+        RAISE NOTICE 'pg_trgm not available, skipping trigram index: %', SQLERRM;
+END
+$$;
@@ -0,0 +1,4 @@
+-- Serves keyset pages ordered by (created_at DESC, id DESC) for one owner's active notes
+CREATE INDEX idx_note_owner_created_id
+    ON note (owner_id, created_at DESC, id DESC)
+    WHERE deleted_at IS NULL;
@@ -0,0 +1,16 @@
+-- Hibernate allocates ids from these sequences in blocks of 50 (pooled optimizer), so inserts
+-- no longer need the generated key back and can be batched. The identity defaults stay, so plain
+-- SQL inserts still work: each nextval value owns the 50 ids ending at it, raw inserts use the
+-- top one itself and Hibernate the ones below, so they never overlap.
+ALTER TABLE users       ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE folders     ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE tag         ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE note        ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE shared_link ALTER COLUMN id SET INCREMENT BY 50;
+
+-- Next block starts above every existing id
+SELECT setval(pg_get_serial_sequence('users', 'id'),       GREATEST((SELECT max(id) FROM users), 1));
+SELECT setval(pg_get_serial_sequence('folders', 'id'),     GREATEST((SELECT max(id) FROM folders), 1));
+SELECT setval(pg_get_serial_sequence('tag', 'id'),         GREATEST((SELECT max(id) FROM tag), 1));
+SELECT setval(pg_get_serial_sequence('note', 'id'),        GREATEST((SELECT max(id) FROM note), 1));
+SELECT setval(pg_get_serial_sequence('shared_link', 'id'), GREATEST((SELECT max(id) FROM shared_link), 1));
@@ -0,0 +1,2 @@
+-- Optimistic lock counter, bumped by every write to a note and exposed to clients as the ETag
+ALTER TABLE note ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
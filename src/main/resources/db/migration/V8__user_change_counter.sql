@@ -0,0 +1,70 @@
+-- One counter per user, bumped by every statement that changes the user's notes, folders, tags or
+-- shared links. Listing ETags are built from it, so an unchanged poll costs one primary key lookup.
+-- Maintained by statement-level triggers so JPA, JDBC batches and bulk UPDATEs are all covered,
+-- and a bulk statement bumps each affected user once rather than once per row.
+CREATE TABLE user_change_counter
+(
+    user_id BIGINT NOT NULL,
+    counter BIGINT NOT NULL,
+    CONSTRAINT pk_user_change_counter PRIMARY KEY (user_id)
+);
+
+CREATE FUNCTION bump_user_change_counter(owner_ids BIGINT[]) RETURNS void AS $$
+    INSERT INTO user_change_counter (user_id, counter)
+    SELECT DISTINCT owner_id, 1
+    FROM unnest(owner_ids) AS owner_id
+    WHERE owner_id IS NOT NULL
+    ORDER BY owner_id
+    ON CONFLICT (user_id) DO UPDATE SET counter = user_change_counter.counter + 1;
+$$ LANGUAGE sql;
+
+-- Tables with an owner_id column
+CREATE FUNCTION owned_rows_changed() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM bump_user_change_counter(ARRAY(SELECT owner_id FROM old_rows));
+    ELSE
+        PERFORM bump_user_change_counter(ARRAY(SELECT owner_id FROM new_rows));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Tables hanging off a note: the owner is the note's
+CREATE FUNCTION note_children_changed() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM bump_user_change_counter(ARRAY(
+                SELECT n.owner_id FROM old_rows r JOIN note n ON n.id = r.note_id));
+    ELSE
+        PERFORM bump_user_change_counter(ARRAY(
+                SELECT n.owner_id FROM new_rows r JOIN note n ON n.id = r.note_id));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Transition tables allow a single event per trigger
+CREATE TRIGGER note_change_counter_insert AFTER INSERT ON note
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION owned_rows_changed();
+CREATE TRIGGER note_change_counter_update AFTER UPDATE ON note
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION owned_rows_changed();
+CREATE TRIGGER note_change_counter_delete AFTER DELETE ON note
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION owned_rows_changed();
+
+CREATE TRIGGER folders_change_counter_insert AFTER INSERT ON folders
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION owned_rows_changed();
+CREATE TRIGGER folders_change_counter_update AFTER UPDATE ON folders
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION owned_rows_changed();
+CREATE TRIGGER folders_change_counter_delete AFTER DELETE ON folders
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION owned_rows_changed();
+
+CREATE TRIGGER note_tags_change_counter_insert AFTER INSERT ON note_tags
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION note_children_changed();
+CREATE TRIGGER note_tags_change_counter_delete AFTER DELETE ON note_tags
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION note_children_changed();
+
+CREATE TRIGGER shared_link_change_counter_insert AFTER INSERT ON shared_link
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION note_children_changed();
+CREATE TRIGGER shared_link_change_counter_delete AFTER DELETE ON shared_link
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION note_children_changed();
@@ -0,0 +1,98 @@
+-- Delta sync: every note and folder row carries the owner's change counter value of the transaction
+-- that last wrote it, and hard deletes leave a tombstone stamped the same way.
+--
+-- The counter is bumped once per transaction and user, and the bump holds the counter row lock until
+-- commit, so one user's writing transactions commit in counter order. A client that has seen every
+-- change up to N can never later find a newly committed row at or below N.
+ALTER TABLE note ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE folders ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE sync_tombstone
+(
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    owner_id    BIGINT                                  NOT NULL,
+    entity_type VARCHAR(16)                             NOT NULL,
+    entity_id   BIGINT                                  NOT NULL,
+    purged_at   TIMESTAMPTZ(6)                          NOT NULL,
+    change_seq  BIGINT                                  NOT NULL DEFAULT 0,
+    CONSTRAINT pk_sync_tombstone PRIMARY KEY (id),
+    CONSTRAINT sync_tombstone_entity_type_check CHECK (entity_type IN ('NOTE', 'FOLDER'))
+);
+
+CREATE INDEX idx_note_owner_change_seq ON note (owner_id, change_seq, id);
+CREATE INDEX idx_folders_owner_change_seq ON folders (owner_id, change_seq, id);
+CREATE INDEX idx_sync_tombstone_owner_change_seq ON sync_tombstone (owner_id, change_seq, entity_id);
+CREATE INDEX idx_sync_tombstone_purged_at ON sync_tombstone (purged_at);
+
+-- The counter value of this transaction for the user, bumping it on first use. The value is
+-- remembered in one transaction-local setting, so a transaction writing for a second user simply
+-- bumps again when it comes back to the first; values stay increasing either way.
+CREATE FUNCTION user_change_seq(for_user BIGINT) RETURNS BIGINT AS $$
+DECLARE
+    remembered TEXT := current_setting('sync.change_seq', true);
+    seq        BIGINT;
+BEGIN
+    IF remembered IS NOT NULL AND remembered <> '' AND split_part(remembered, ':', 1)::BIGINT = for_user THEN
+        RETURN split_part(remembered, ':', 2)::BIGINT;
+    END IF;
+
+    INSERT INTO user_change_counter (user_id, counter)
+    VALUES (for_user, 1)
+    ON CONFLICT (user_id) DO UPDATE SET counter = user_change_counter.counter + 1
+    RETURNING user_change_counter.counter INTO seq;
+    PERFORM set_config('sync.change_seq', for_user || ':' || seq, true);
+    RETURN seq;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION stamp_change_seq() RETURNS trigger AS $$
+BEGIN
+    NEW.change_seq := user_change_seq(NEW.owner_id);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Statement triggers from V8 now share the per-transaction bump
+CREATE OR REPLACE FUNCTION bump_user_change_counter(owner_ids BIGINT[]) RETURNS void AS $$
+BEGIN
+    PERFORM user_change_seq(owner_id)
+    FROM (SELECT DISTINCT unnest(owner_ids) AS owner_id ORDER BY 1) owners
+    WHERE owner_id IS NOT NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION record_tombstones() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO sync_tombstone (owner_id, entity_type, entity_id, purged_at)
+    SELECT owner_id, TG_ARGV[0], id, now()
+    FROM old_rows
+    ORDER BY owner_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Row stamps replace the V8 insert/update counters on the two synced tables
+DROP TRIGGER note_change_counter_insert ON note;
+DROP TRIGGER note_change_counter_update ON note;
+DROP TRIGGER note_change_counter_delete ON note;
+DROP TRIGGER folders_change_counter_insert ON folders;
+DROP TRIGGER folders_change_counter_update ON folders;
+DROP TRIGGER folders_change_counter_delete ON folders;
+DROP FUNCTION owned_rows_changed();
+
+CREATE TRIGGER note_change_seq BEFORE INSERT OR UPDATE ON note
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_seq();
+CREATE TRIGGER folders_change_seq BEFORE INSERT OR UPDATE ON folders
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_seq();
+CREATE TRIGGER sync_tombstone_change_seq BEFORE INSERT ON sync_tombstone
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_seq();
+
+-- Purges (SoftDeleteCleanupJob, or any other hard delete) become tombstones, which bump the counter
+CREATE TRIGGER note_tombstone AFTER DELETE ON note
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION record_tombstones('NOTE');
+CREATE TRIGGER folders_tombstone AFTER DELETE ON folders
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION record_tombstones('FOLDER');
+
+-- Highest change_seq among a user's tombstones that retention has removed. A sync cursor below it
+-- may have missed a purge, so the client has to start over.
+ALTER TABLE user_change_counter ADD COLUMN tombstone_horizon BIGINT NOT NULL DEFAULT 0;
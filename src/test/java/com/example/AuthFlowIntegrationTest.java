@@ -1,17 +1,24 @@
 package com.example;
 
+import com.example.revoked.RevokedTokenRepository;
+import com.example.security.JwtProperties;
 import com.example.user.Role;
 import com.example.user.User;
 import com.example.user.UserRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.UUID;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -29,6 +36,10 @@ public class AuthFlowIntegrationTest {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private JwtProperties jwtProperties;
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
 
     private User userA;
     @BeforeEach
@@ -71,6 +82,32 @@ public class AuthFlowIntegrationTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void tokenWithoutExpiryCanLogOut() throws Exception {
+        String jti = UUID.randomUUID().toString();
+        String token = Jwts.builder()
+                .setSubject("a@test.com")
+                .setId(jti)
+                .signWith(Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes()))
+                .compact();
+
+        mockMvc.perform(get("/me")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/auth/logout")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        // kept for a full token lifetime, as nothing else bounds it
+        assertThat(revokedTokenRepository.findAll().stream()
+                .filter(revoked -> jti.equals(revoked.getJti()))
+                .findFirst().orElseThrow().getExpiresAt()).isNotNull();
+        mockMvc.perform(get("/me")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     void duplicateRegistrationNotAllowed() throws Exception{
         mockMvc.perform(post("/auth/register")
@@ -141,6 +178,19 @@ public class AuthFlowIntegrationTest {
         assertThat(token).isNotBlank();
     }
 
+    @Test
+    void loginRehashesPasswordStoredWithOutdatedCost() throws Exception {
+        userRepository.save(
+                new User("legacy@test.com", new BCryptPasswordEncoder(4).encode("password"), Role.USER)
+        );
+
+        loginAndGetToken("legacy@test.com", "password");
+
+        User rehashed = userRepository.findByEmail("legacy@test.com").orElseThrow();
+        assertThat(rehashed.getPassword()).doesNotStartWith("$2a$04$");
+        assertThat(passwordEncoder.matches("password", rehashed.getPassword())).isTrue();
+    }
+
     @Test
     void loginValidationWorks() throws Exception {
         mockMvc.perform(post("/auth/login")
@@ -0,0 +1,273 @@
+package com.example;
+
+import com.example.folder.Folder;
+import com.example.folder.FolderRepository;
+import com.example.note.Note;
+import com.example.note.NoteRepository;
+import com.example.note.SearchProperties;
+import com.example.user.Role;
+import com.example.user.User;
+import com.example.user.UserRepository;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class NoteSearchIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    FolderRepository folderRepository;
+
+    @Autowired
+    NoteRepository noteRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    SearchProperties searchProperties;
+
+    User userA, userB;
+    Note running, cooking;
+
+    @BeforeEach
+    void setup() {
+        userA = userRepository.save(
+                new User("userA", passwordEncoder.encode("password"), Role.USER)
+        );
+        userB = userRepository.save(
+                new User("userB", passwordEncoder.encode("password"), Role.USER)
+        );
+
+        Folder folderA = folderRepository.save(new Folder("Default", userA));
+        Folder folderB = folderRepository.save(new Folder("Default", userB));
+
+        running = noteRepository.save(new Note("Went running in the park before work", userA, folderA));
+        cooking = noteRepository.save(new Note("Cooking pasta for dinner", userA, folderA));
+        noteRepository.save(new Note("Userb also runs in the park", userB, folderB));
+    }
+
+    @Test
+    void fullTextSnippetEscapesNoteContent() throws Exception {
+        noteRepository.save(new Note("Park <script>alert(1)</script> & friends", userA, running.getFolder()));
+
+        mockMvc.perform(get("/notes/search")
+                        .param("mode", "fulltext")
+                        .param("text", "friends")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].snippet").value(containsString("&lt;script&gt;")))
+                .andExpect(jsonPath("$.content[0].snippet").value(not(containsString("<script>"))))
+                .andExpect(jsonPath("$.content[0].snippet").value(containsString("<mark>friends</mark>")));
+    }
+
+    @Test
+    void fullTextSearchMatchesStemmedWordsWithSnippet() throws Exception {
+        mockMvc.perform(get("/notes/search")
+                        .param("mode", "fulltext")
+                        .param("text", "runs park")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(running.getId()))
+                .andExpect(jsonPath("$.content[0].snippet").value(containsString("<mark>park</mark>")));
+    }
+
+    @Test
+    void fullTextSearchOnlyReturnsOwnNotes() throws Exception {
+        mockMvc.perform(get("/notes/search")
+                        .param("mode", "fulltext")
+                        .param("text", "dinner")
+                        .with(user("userB").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+    }
+
+    @Test
+    void fuzzySearchKeepsSubstringMatches() throws Exception {
+        mockMvc.perform(get("/notes/search")
+                        .param("mode", "fuzzy")
+                        .param("text", "OOKIN")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(cooking.getId()));
+    }
+
+    @Test
+    void fuzzySearchToleratesMisspellings() throws Exception {
+        mockMvc.perform(get("/notes/search")
+                        .param("mode", "fuzzy")
+                        .param("text", "pastta")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(cooking.getId()));
+    }
+
+    @Test
+    void substringSearchThroughEmbeddedIndex() throws Exception {
+        searchProperties.setEmbeddedIndexEnabled(true);
+        try {
+            mockMvc.perform(get("/notes/search")
+                            .param("text", "PARK")
+                            .with(user("userA").roles("USER")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(1))
+                    .andExpect(jsonPath("$.content[0].id").value(running.getId()));
+
+            // no note holds every trigram of the query, answered without touching the notes table
+            mockMvc.perform(get("/notes/search")
+                            .param("text", "pasta park")
+                            .with(user("userA").roles("USER")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(0));
+        } finally {
+            searchProperties.setEmbeddedIndexEnabled(false);
+        }
+    }
+
+    @Test
+    void cursorPagesWalkNewestFirstWithoutTotals() throws Exception {
+        String body = mockMvc.perform(get("/notes")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(cooking.getId()))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        String next = JsonPath.read(body, "$.nextCursor");
+
+        mockMvc.perform(get("/notes")
+                        .param("cursor", next)
+                        .param("size", "1")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(running.getId()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/notes")
+                        .param("cursor", "not-a-cursor")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void summaryViewReturnsPreviewInsteadOfContent() throws Exception {
+        mockMvc.perform(get("/notes/search")
+                        .param("view", "summary")
+                        .param("text", "pasta")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(cooking.getId()))
+                .andExpect(jsonPath("$.content[0].preview").value("Cooking pasta for dinner"))
+                .andExpect(jsonPath("$.content[0].content").doesNotExist())
+                .andExpect(jsonPath("$.content[0].userName").doesNotExist());
+    }
+
+    @Test
+    void fieldsParameterLimitsSerializedProperties() throws Exception {
+        mockMvc.perform(get("/notes")
+                        .param("fields", "id,updatedAt")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].id").exists())
+                .andExpect(jsonPath("$.content[0].updatedAt").exists())
+                .andExpect(jsonPath("$.content[0].content").doesNotExist())
+                .andExpect(jsonPath("$.content[0].userName").doesNotExist());
+
+        mockMvc.perform(get("/folders")
+                        .param("fields", "name")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Default"))
+                .andExpect(jsonPath("$[0].id").doesNotExist());
+    }
+
+    @Test
+    void fieldsParameterAppliesToCursorSearchAndFolderListings() throws Exception {
+        String body = mockMvc.perform(get("/notes")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .param("fields", "id,tags")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].tags").isArray())
+                .andExpect(jsonPath("$.content[0].createdAt").doesNotExist())
+                .andExpect(jsonPath("$.content[0].content").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        String next = JsonPath.read(body, "$.nextCursor");
+
+        mockMvc.perform(get("/notes")
+                        .param("cursor", next)
+                        .param("size", "1")
+                        .param("fields", "id,tags")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(running.getId()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/notes/search")
+                        .param("text", "park")
+                        .param("cursor", "")
+                        .param("fields", "content")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].content").value(running.getContent()))
+                .andExpect(jsonPath("$.content[0].id").doesNotExist());
+
+        mockMvc.perform(get("/notes/search")
+                        .param("text", "park")
+                        .param("fields", "id")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(running.getId()))
+                .andExpect(jsonPath("$.content[0].content").doesNotExist());
+
+        mockMvc.perform(get("/notes/folder/{folderId}", running.getFolder().getId())
+                        .param("fields", "folderId")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].folderId").value(running.getFolder().getId()))
+                .andExpect(jsonPath("$[0].id").doesNotExist());
+    }
+
+    @Test
+    void unknownFieldIsBadRequest() throws Exception {
+        mockMvc.perform(get("/notes")
+                        .param("fields", "id,password")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -13,12 +13,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -91,5 +97,66 @@ class OwnershipIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
-}
+    @Test
+    void batchGetReportsOtherUsersNotesAsNotFound() throws Exception {
+        Folder folderB = folderRepository.save(new Folder("Default", userB));
+        Note noteB = noteRepository.save(new Note("B's note", userB, folderB));
+
+        mockMvc.perform(post("/notes/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [" + note.getId() + ", " + noteB.getId() + ", " + note.getId() + "]}")
+                        .with(user("a@test.com").password("password").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes.length()").value(1))
+                .andExpect(jsonPath("$.notes[0].id").value(note.getId()))
+                .andExpect(jsonPath("$.notFound[0]").value(noteB.getId()));
+    }
+
+    @Test
+    void staleIfMatchIsRejected() throws Exception {
+        mockMvc.perform(patch("/notes/{id}", note.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"first edit\"}")
+                        .with(user("a@test.com").password("password").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.content").value("first edit"));
+
+        // a second writer still holding version 0 would overwrite the first edit
+        mockMvc.perform(patch("/notes/{id}", note.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"lost edit\"}")
+                        .with(user("a@test.com").password("password").roles("USER")))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/notes/{id}", note.getId())
+                        .with(user("a@test.com").password("password").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("first edit"))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    void ifMatchOnAnotherUsersNoteIsNotFound() throws Exception {
+        mockMvc.perform(delete("/notes/{id}", note.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .with(user("b@test.com").password("password").roles("USER")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void unchangedNoteIsNotModified() throws Exception {
+        mockMvc.perform(get("/notes/{id}", note.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                        .with(user("a@test.com").password("password").roles("USER")))
+                .andExpect(status().isNotModified());
 
+        // the check keeps ownership rules, another user's version is not revealed
+        mockMvc.perform(get("/notes/{id}", note.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                        .with(user("b@test.com").password("password").roles("USER")))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,187 @@
+package com.example;
+
+import com.example.folder.Folder;
+import com.example.folder.FolderRepository;
+import com.example.note.Note;
+import com.example.note.NoteRepository;
+import com.example.tag.Tag;
+import com.example.tag.TagRepository;
+import com.example.user.Role;
+import com.example.user.User;
+import com.example.user.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Guards the number of statements list endpoints issue, so lazy loads per row cannot creep back in
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class QueryCountIntegrationTest {
+
+    private static final int PAGE = 20;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    FolderRepository folderRepository;
+
+    @Autowired
+    NoteRepository noteRepository;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+    Long ownerId, folderId;
+
+    @BeforeEach
+    void setup() {
+        User owner = userRepository.save(
+                new User("counter", passwordEncoder.encode("password"), Role.USER)
+        );
+        Folder folder = folderRepository.save(new Folder("Default", owner));
+        ownerId = owner.getId();
+        folderId = folder.getId();
+        Tag work = tagRepository.save(new Tag("count-work"));
+        Tag home = tagRepository.save(new Tag("count-home"));
+
+        for (int i = 0; i < PAGE; i++) {
+            Note note = new Note("note " + i, owner, folder);
+            note.getTags().add(i % 2 == 0 ? work : home);
+            noteRepository.save(note);
+        }
+
+        // start every request from an empty persistence context, like a real one
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    // principal + notes + tag batch + count
+    @Test
+    void listPageUsesConstantQueries() throws Exception {
+        mockMvc.perform(get("/notes")
+                        .param("size", String.valueOf(PAGE))
+                        .with(user("counter").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(PAGE))
+                .andExpect(jsonPath("$.content[0].tags[0]").exists());
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void searchPageUsesConstantQueries() throws Exception {
+        mockMvc.perform(get("/notes/search")
+                        .param("text", "note")
+                        .param("size", String.valueOf(PAGE))
+                        .with(user("counter").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(PAGE));
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    // sequence ids let Hibernate batch: one nextval at most, one prepared INSERT for the lot
+    @Test
+    void saveAllBatchesInserts() {
+        User owner = entityManager.getReference(User.class, ownerId);
+        Folder folder = entityManager.getReference(Folder.class, folderId);
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            notes.add(new Note("batched " + i, owner, folder));
+        }
+
+        noteRepository.saveAll(notes);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(30);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    // the poll answers from the change counter alone, and any write invalidates the tag
+    @Test
+    void unchangedListingPollIsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/notes")
+                        .with(user("counter").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        statistics.clear();
+        mockMvc.perform(get("/notes")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .with(user("counter").roles("USER")))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+
+        mockMvc.perform(post("/notes")
+                        .param("folderId", String.valueOf(folderId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"new note\"}")
+                        .with(user("counter").roles("USER")))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/notes")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .with(user("counter").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(PAGE + 1));
+    }
+
+    // signature and shape are checked in memory, scanners never reach the database
+    @Test
+    void malformedSharedTokenCostsNoQueries() throws Exception {
+        mockMvc.perform(get("/shared/{token}", "v1.AAAAAAAAAAEAAAAAAAAAAA.not-a-signature"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/shared/{token}", "admin.php"))
+                .andExpect(status().isNotFound());
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+}
@@ -2,15 +2,20 @@ package com.example;
 
 import com.example.folder.Folder;
 import com.example.folder.FolderRepository;
+import com.example.jobs.SharedLinkStatsFlushJob;
 import com.example.note.Note;
 import com.example.note.NoteRepository;
 import com.example.shared.SharedAction;
 import com.example.shared.SharedLink;
 import com.example.shared.SharedLinkRepository;
+import com.example.shared.SharedLinkTokens;
 import com.example.user.Role;
 import com.example.user.User;
 import com.example.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,14 +23,27 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 @SpringBootTest
@@ -45,10 +63,17 @@ public class SharedLinkIntegrationTest {
     SharedLinkRepository sharedLinkRepository;
     @Autowired
     PasswordEncoder passwordEncoder;
+    @Autowired
+    SharedLinkTokens sharedLinkTokens;
+    @Autowired
+    SharedLinkStatsFlushJob statsFlushJob;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
 
     User owner;
     Folder folder;
     Note note;
+    SharedLink link;
     String token;
 
     @BeforeEach
@@ -64,7 +89,7 @@ public class SharedLinkIntegrationTest {
         token = UUID.randomUUID().toString();
 
         // direct saving opposed to sharing a note
-        sharedLinkRepository.save(new SharedLink(
+        link = sharedLinkRepository.save(new SharedLink(
                 token,
                 note, // <--- connected through HERE
                 owner,
@@ -166,5 +191,180 @@ public class SharedLinkIntegrationTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void cachedLinkSeesOwnerEdit() throws Exception {
+        mockMvc.perform(get("/shared/{token}", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("Secret"));
+
+        mockMvc.perform(patch("/notes/{id}", note.getId())
+                        .contentType("application/json")
+                        .content("""
+                        { "content": "edited by owner" }
+                    """)
+                        .with(user("owner@test.com").roles("USER")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/shared/{token}", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("edited by owner"));
+    }
+
+    @Test
+    void sharedReadIsCacheableAndRevalidates() throws Exception {
+        String etag = mockMvc.perform(get("/shared/{token}", token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=60, public"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/shared/{token}", token).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(patch("/notes/{id}", note.getId())
+                        .contentType("application/json")
+                        .content("""
+                        { "content": "edited by owner" }
+                    """)
+                        .with(user("owner@test.com").roles("USER")))
+                .andExpect(status().isOk());
 
-}
\ No newline at end of file
+        mockMvc.perform(get("/shared/{token}", token).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"")))
+                .andExpect(jsonPath("$.content").value("edited by owner"));
+    }
+
+    @Test
+    void sharedReadIsNotCachedPastExpiry() throws Exception {
+        String shortToken = UUID.randomUUID().toString();
+        sharedLinkRepository.save(new SharedLink(
+                shortToken,
+                note,
+                owner,
+                Set.of(SharedAction.READ),
+                Instant.now().plusSeconds(30)
+        ));
+
+        mockMvc.perform(get("/shared/{token}", shortToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", startsWith("max-age=2")));
+    }
+
+    @Test
+    void rejectedSharedReadsAreNotStored() throws Exception {
+        String revokedToken = UUID.randomUUID().toString();
+        SharedLink link = sharedLinkRepository.save(new SharedLink(
+                revokedToken,
+                note,
+                owner,
+                Set.of(SharedAction.READ),
+                Instant.now().plusSeconds(3600)
+        ));
+        link.revoke(Instant.now());
+
+        mockMvc.perform(get("/shared/{token}", revokedToken))
+                .andExpect(status().isForbidden())
+                .andExpect(header().string("Cache-Control", "no-store"));
+
+        mockMvc.perform(get("/shared/bad-token-xyz"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string("Cache-Control", "no-store"));
+    }
+
+    @Test
+    void sharingIssuesSignedToken() throws Exception {
+        String signedToken = mockMvc.perform(post("/notes/{id}/share", note.getId())
+                        .contentType("application/json")
+                        .content("""
+                        { "expiresInSeconds": 3600 }
+                    """)
+                        .with(user("owner@test.com").roles("USER")))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(signedToken).startsWith("v1.");
+        mockMvc.perform(get("/shared/{token}", signedToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("Secret"));
+    }
+
+    @Test
+    void forgedSignedTokenIsNotFound() throws Exception {
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        String mine = sharedLinkTokens.sign(1L, expiresAt);
+        String other = sharedLinkTokens.sign(2L, expiresAt);
+        // another link's payload under this one's signature
+        String forged = other.substring(0, other.lastIndexOf('.')) + mine.substring(mine.lastIndexOf('.'));
+
+        mockMvc.perform(get("/shared/{token}", forged))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void expiredSignedTokenIsRejected() throws Exception {
+        String expiredToken = sharedLinkTokens.sign(1L, Instant.now().minusSeconds(60));
+
+        mockMvc.perform(get("/shared/{token}", expiredToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void sharedReadsAreCountedOnceFlushed() throws Exception {
+        mockMvc.perform(get("/shared/{token}", token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/shared/{token}", token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/notes/{id}/share/stats", note.getId())
+                        .with(user("owner@test.com").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].viewCount").value(0));
+
+        statsFlushJob.flush();
+
+        mockMvc.perform(get("/notes/{id}/share/stats", note.getId())
+                        .with(user("owner@test.com").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].viewCount").value(2))
+                .andExpect(jsonPath("$[0].lastAccessedAt").exists());
+    }
+
+    // Committed rather than rolled back: the concurrent readers run on their own threads and connections
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void concurrentColdReadsShareOneLoad() throws Exception {
+        int readers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<Integer>> reads = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                reads.add(pool.submit(() -> {
+                    go.await();
+                    return mockMvc.perform(get("/shared/{token}", token))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            go.countDown();
+            for (Future<Integer> read : reads) {
+                assertThat(read.get(10, TimeUnit.SECONDS)).isEqualTo(200);
+            }
+
+            long lookups = Arrays.stream(statistics.getQueries())
+                    .filter(query -> query.contains("where l.token = :token"))
+                    .mapToLong(query -> statistics.getQueryStatistics(query).getExecutionCount())
+                    .sum();
+            assertThat(lookups).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+            statistics.setStatisticsEnabled(false);
+            sharedLinkRepository.delete(link);
+            noteRepository.delete(note);
+            folderRepository.delete(folder);
+            userRepository.delete(owner);
+        }
+    }
+}
@@ -4,24 +4,32 @@ import com.example.folder.Folder;
 import com.example.folder.FolderRepository;
 import com.example.note.Note;
 import com.example.note.NoteRepository;
+import com.example.sync.SyncQueries;
 import com.example.user.Role;
 import com.example.user.User;
 import com.example.user.UserRepository;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
+import java.time.Instant;
+import java.util.List;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 @Transactional
@@ -42,6 +50,12 @@ public class SoftDeleteIntegrationTest {
     @Autowired
     PasswordEncoder passwordEncoder;
 
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    SyncQueries syncQueries;
+
     User userA;
     Folder folder;
     Note note, note1, note2;
@@ -178,4 +192,125 @@ public class SoftDeleteIntegrationTest {
         """))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void bulkOperationsReportPerItemAndApplyInOrder() throws Exception {
+        String body = """
+                {"operations": [
+                  {"action": "UPDATE", "noteId": %d, "content": "Declassified"},
+                  {"action": "DELETE", "noteId": %d},
+                  {"action": "RESTORE", "noteId": %d},
+                  {"action": "CREATE", "folderId": %d, "content": "Fresh"},
+                  {"action": "TAG", "noteId": %d, "tags": [" Work "]},
+                  {"action": "DELETE", "noteId": -1}
+                ]}
+                """.formatted(note.getId(), note1.getId(), note1.getId(), folder.getId(), note.getId());
+
+        mockMvc.perform(post("/notes/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body)
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].status").value("OK"))
+                .andExpect(jsonPath("$.results[1].status").value("OK"))
+                .andExpect(jsonPath("$.results[2].status").value("INVALID"))
+                .andExpect(jsonPath("$.results[3].status").value("OK"))
+                .andExpect(jsonPath("$.results[3].noteId").isNumber())
+                .andExpect(jsonPath("$.results[4].status").value("OK"))
+                .andExpect(jsonPath("$.results[5].status").value("NOT_FOUND"));
+
+        mockMvc.perform(get("/notes/{id}", note.getId())
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("Declassified"))
+                .andExpect(jsonPath("$.tags[0]").value("work"));
+
+        mockMvc.perform(get("/notes/{id}", note1.getId())
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void syncStreamsSoftDeletesAndPurgesAfterCursor() throws Exception {
+        String body = mockMvc.perform(get("/sync/changes")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(4))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.nextCursor");
+
+        nextTransaction();
+        mockMvc.perform(delete("/notes/{id}", note.getId())
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk());
+
+        // what SoftDeleteCleanupJob does once the note is old enough
+        nextTransaction();
+        noteRepository.deleteById(note1.getId());
+        entityManager.flush();
+
+        mockMvc.perform(get("/sync/changes")
+                        .param("since", cursor)
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(2))
+                .andExpect(jsonPath("$.changes[0].id").value(note.getId()))
+                .andExpect(jsonPath("$.changes[0].operation").value("DELETED"))
+                .andExpect(jsonPath("$.changes[1].id").value(note1.getId()))
+                .andExpect(jsonPath("$.changes[1].operation").value("PURGED"));
+    }
+
+    @Test
+    void cursorInsideAPurgedChangeSeqIsGone() throws Exception {
+        String body = mockMvc.perform(get("/sync/changes")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.nextCursor");
+
+        // one statement, so both tombstones share one change_seq
+        nextTransaction();
+        noteRepository.deleteAllByIdInBatch(List.of(note1.getId(), note2.getId()));
+        entityManager.flush();
+
+        body = mockMvc.perform(get("/sync/changes")
+                        .param("since", cursor)
+                        .param("limit", "1")
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].operation").value("PURGED"))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andReturn().getResponse().getContentAsString();
+        String midway = JsonPath.read(body, "$.nextCursor");
+
+        // another client reads both tombstones
+        body = mockMvc.perform(get("/sync/changes")
+                        .param("since", cursor)
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+        String caughtUp = JsonPath.read(body, "$.nextCursor");
+
+        // retention removes the second tombstone before the first client asks for it
+        syncQueries.purgeTombstonesBefore(Instant.now().plusSeconds(60));
+
+        mockMvc.perform(get("/sync/changes")
+                        .param("since", midway)
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isGone());
+        mockMvc.perform(get("/sync/changes")
+                        .param("since", caughtUp)
+                        .with(user("userA").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(0));
+    }
+
+    // Each request commits on its own in production; the test transaction spans all of them, so forget
+    // the change_seq it already took, like a new transaction would
+    private void nextTransaction() {
+        entityManager.flush();
+        entityManager.createNativeQuery("SELECT set_config('sync.change_seq', '', true)").getSingleResult();
+    }
 }
@@ -0,0 +1,68 @@
+package com.example.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+// Compares the old per-call parser, a shared parser and the verified-token cache.
+// Run main() after `mvn test-compile`, it is not picked up by surefire.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private Key key;
+    private JwtParser sharedParser;
+    private String token;
+
+    @Setup
+    public void setup() {
+        JwtProperties props = new JwtProperties();
+        props.setSecret("benchmark-secret-key-long-enough-for-hs256");
+        props.setExpirationMs(3_600_000);
+
+        jwtUtil = new JwtUtil(props);
+        key = Keys.hmacShaKeyFor(props.getSecret().getBytes());
+        sharedParser = Jwts.parserBuilder().setSigningKey(key).build();
+        token = jwtUtil.generateToken("bench@test.com");
+    }
+
+    // Baseline: what parseClaims did before
+    @Benchmark
+    public Claims parserPerCall() {
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public Claims sharedParserUncached() {
+        return sharedParser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims cached() {
+        return jwtUtil.parseClaims(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtUtilBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
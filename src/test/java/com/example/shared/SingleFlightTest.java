@@ -0,0 +1,149 @@
+package com.example.shared;
+
+import com.example.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+// Plain unit test: the leader's loader is held on a latch so every waiter provably joins the same load
+class SingleFlightTest {
+
+    private static final int WAITERS = 8;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(WAITERS + 1);
+    private final Collection<Thread> waiterThreads = new ConcurrentLinkedQueue<>();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoadsOfOneKeyRunTheLoaderOnce() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = pool.submit(() -> flight.load("token", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "loaded";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<String>> waiters = submitWaiters(flight, () -> {
+            calls.incrementAndGet();
+            return "loaded again";
+        });
+        awaitParked();
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        for (Future<String> waiter : waiters) {
+            assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        }
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void waiterPastTheTimeoutGetsServiceUnavailable() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = pool.submit(() -> flight.load("token", () -> {
+            started.countDown();
+            await(release);
+            return "loaded";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> flight.load("token", () -> "loaded again"))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        // the load itself keeps going for the caller that owns it
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+    }
+
+    @Test
+    void loaderFailureReachesEveryWaiter() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(5));
+        RuntimeException failure = new IllegalStateException("database unavailable");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = pool.submit(() -> flight.load("token", () -> {
+            started.countDown();
+            await(release);
+            throw failure;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<String>> waiters = submitWaiters(flight, () -> "loaded again");
+        awaitParked();
+        release.countDown();
+
+        List<Future<String>> all = new ArrayList<>(waiters);
+        all.add(leader);
+        for (Future<String> caller : all) {
+            ExecutionException ex = catchThrowableOfType(
+                    () -> caller.get(5, TimeUnit.SECONDS), ExecutionException.class);
+            assertThat(ex.getCause()).isSameAs(failure);
+        }
+    }
+
+    private List<Future<String>> submitWaiters(SingleFlight<String, String> flight,
+                                               Supplier<String> loader) {
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            waiters.add(pool.submit(() -> {
+                waiterThreads.add(Thread.currentThread());
+                return flight.load("token", loader);
+            }));
+        }
+        return waiters;
+    }
+
+    // Waiters block in a timed get on the running load; only then is releasing the leader meaningful
+    private void awaitParked() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waiterThreads.size() < WAITERS
+                || !waiterThreads.stream().allMatch(t -> t.getState() == Thread.State.TIMED_WAITING)) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("waiters never blocked on the running load");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("loader was never released");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}